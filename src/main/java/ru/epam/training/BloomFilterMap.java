@@ -0,0 +1,216 @@
+package ru.epam.training;
+
+import java.util.*;
+
+/**
+ * Map wrapper, which answers get and containsKey for most absent keys with a Bloom filter of key
+ * hash codes, without touching the wrapped map. Keys are added to the filter by put and putAll of
+ * this wrapper, removals make the filter stale and it is rebuilt from the keys of the map by put
+ * or remove, when too many keys are removed or too many keys are added for the expected amount,
+ * so lookups never pay for a rebuild.
+ * Removals through views are allowed, they only leave stale bits. Insertions must go through the
+ * wrapper, and hashCode of keys must be consistent with key equality of the wrapped map, so it
+ * is not suitable for a CustomTreeMap with a comparator inconsistent with equals.
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class BloomFilterMap<K, V> implements Map<K, V> {
+
+    static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    private static final double LN2 = Math.log(2);
+
+    private final Map<K, V> map;
+
+    private final double falsePositiveRate;
+
+    /**
+     * Amount of keys the filter is sized for, doubled by a rebuild when more keys are added.
+     */
+    private int expectedKeys;
+
+    private long[] bits;
+
+    private long bitCount;
+
+    private int hashCount;
+
+    /**
+     * Amount of keys added since the last rebuild, an upper bound of keys in the filter.
+     */
+    private int addedKeys;
+
+    private int removedKeys;
+
+    public BloomFilterMap(Map<K, V> map) {
+        this(map, Math.max(map.size(), 16), DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * @param map               map to wrap, its current keys are added to the filter
+     * @param expectedKeys      amount of keys the filter is sized for
+     * @param falsePositiveRate probability to look up an absent key in the map
+     * @throws IllegalArgumentException if expectedKeys is not positive or falsePositiveRate is not between 0 and 1
+     */
+
+    public BloomFilterMap(Map<K, V> map, int expectedKeys, double falsePositiveRate) {
+        if (expectedKeys <= 0) {
+            throw new IllegalArgumentException("Illegal expected keys: " + expectedKeys);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Illegal false positive rate: " + falsePositiveRate);
+        }
+        this.map = Objects.requireNonNull(map);
+        this.falsePositiveRate = falsePositiveRate;
+        this.expectedKeys = expectedKeys;
+        rebuild();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return mightContain(key) && map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return map.containsValue(value);
+    }
+
+    @Override
+    public V get(Object key) {
+        return mightContain(key) ? map.get(key) : null;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        return mightContain(key) ? map.getOrDefault(key, defaultValue) : defaultValue;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        int oldSize = map.size();
+        V oldValue = map.put(key, value);
+        if (map.size() != oldSize) {
+            addKey(key);
+            if (addedKeys > expectedKeys) {
+                rebuild();
+            }
+        }
+        return oldValue;
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!mightContain(key)) {
+            return null;
+        }
+        int oldSize = map.size();
+        V oldValue = map.remove(key);
+        if (map.size() != oldSize && ++removedKeys > addedKeys / 4 + 1) {
+            rebuild();
+        }
+        return oldValue;
+    }
+
+    /**
+     * @param m map for insert
+     * @throws NullPointerException if m == null
+     */
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> insertionEntry : m.entrySet()) {
+            this.put(insertionEntry.getKey(), insertionEntry.getValue());
+        }
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        Arrays.fill(bits, 0);
+        addedKeys = 0;
+        removedKeys = 0;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return map.keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return map.values();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return map.entrySet();
+    }
+
+    /**
+     * @return false if the key is surely absent
+     */
+
+    boolean mightContain(Object key) {
+        long h = mix(key);
+        long h1 = h >>> 32;
+        long h2 = (h & 0xFFFFFFFFL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) % bitCount;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mix(Object key) {
+        long h = Objects.hashCode(key) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private void addKey(Object key) {
+        long h = mix(key);
+        long h1 = h >>> 32;
+        long h2 = (h & 0xFFFFFFFFL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) % bitCount;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        addedKeys++;
+    }
+
+    /**
+     * Sizes the filter for the expected keys by the usual formulas m = -n ln p / ln^2 2 and
+     * k = m / n ln 2, and adds all keys of the map.
+     */
+
+    private void rebuild() {
+        while (expectedKeys < map.size() && expectedKeys < Integer.MAX_VALUE / 2) {
+            expectedKeys *= 2;
+        }
+        long optimalBits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int words = (int) Math.min((optimalBits + 63) >>> 6, Integer.MAX_VALUE - 8);
+        bits = new long[words];
+        bitCount = (long) words << 6;
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * LN2));
+        addedKeys = 0;
+        removedKeys = 0;
+        for (K key : map.keySet()) {
+            addKey(key);
+        }
+    }
+
+}
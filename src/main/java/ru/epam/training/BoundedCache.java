@@ -0,0 +1,293 @@
+package ru.epam.training;
+
+import java.util.*;
+
+/**
+ * CustomHashMap which holds no more than the given amount of entries.
+ * Entries are linked in access order through the entries themselves, so the least recently used
+ * entry is found and evicted in constant time. With the TINY_LFU policy a new entry is admitted
+ * only if it was requested more often than the entry it would evict; frequencies are estimated
+ * by a count-min sketch of 4-bit counters which are halved periodically, so old popularity fades.
+ * Hits, misses and evictions are counted.
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class BoundedCache<K, V> extends CustomHashMap<K, V> {
+
+    /**
+     * Default value which tells a miss from a null value.
+     */
+    private static final Object ABSENT = new Object();
+
+    private final int maximumSize;
+
+    private final Policy policy;
+
+    private final FrequencySketch sketch;
+
+    /**
+     * Least recently used entry.
+     */
+    private LinkedEntry<K, V> head;
+
+    /**
+     * Most recently used entry.
+     */
+    private LinkedEntry<K, V> tail;
+
+    private long hitCount = 0;
+
+    private long missCount = 0;
+
+    private long evictionCount = 0;
+
+    public BoundedCache(int maximumSize) {
+        this(maximumSize, Policy.LRU);
+    }
+
+    /**
+     * @param maximumSize maximal amount of entries
+     * @param policy      way to choose entries for eviction
+     * @throws IllegalArgumentException if maximumSize is not positive
+     */
+
+    public BoundedCache(int maximumSize, Policy policy) {
+        super(initialCapacity(maximumSize));
+        this.maximumSize = maximumSize;
+        this.policy = Objects.requireNonNull(policy);
+        this.sketch = policy == Policy.TINY_LFU ? new FrequencySketch(maximumSize) : null;
+    }
+
+    /**
+     * Counts a hit or a miss, a miss does not change the cache.
+     */
+
+    @Override
+    public V get(Object key) {
+        return getOrDefault(key, null);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        V value = super.getOrDefault(key, (V) ABSENT);
+        if (value == ABSENT) {
+            missCount++;
+            return defaultValue;
+        }
+        hitCount++;
+        return value;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        head = null;
+        tail = null;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    int maximumEntries() {
+        return maximumSize;
+    }
+
+    @Override
+    CustomEntry<K, V> newEntry(int hash, K key, V value) {
+        return new LinkedEntry<>(hash, key, value);
+    }
+
+    @Override
+    void afterEntryAccess(CustomEntry<K, V> entry) {
+        LinkedEntry<K, V> linkedEntry = (LinkedEntry<K, V>) entry;
+        if (linkedEntry != tail) {
+            unlink(linkedEntry);
+            linkLast(linkedEntry);
+        }
+    }
+
+    /**
+     * Evicts the least recently used entry or, if the policy does not admit the new one, the new entry.
+     */
+
+    @Override
+    void afterEntryInsertion(CustomEntry<K, V> entry) {
+        LinkedEntry<K, V> candidate = (LinkedEntry<K, V>) entry;
+        linkLast(candidate);
+        if (sketch != null) {
+            sketch.increment(candidate.key);
+        }
+        if (size() <= maximumSize) {
+            return;
+        }
+        LinkedEntry<K, V> victim = head;
+        if (sketch != null && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+            victim = candidate;
+        }
+        evictionCount++;
+        remove(victim.key);
+    }
+
+    @Override
+    void afterEntryRemoval(CustomEntry<K, V> entry) {
+        unlink((LinkedEntry<K, V>) entry);
+    }
+
+    @Override
+    void afterEntryReplacement(CustomEntry<K, V> entry, CustomEntry<K, V> replacement) {
+        LinkedEntry<K, V> linkedReplacement = (LinkedEntry<K, V>) replacement;
+        if (linkedReplacement.before == null && head != entry) {
+            return;
+        }
+        if (linkedReplacement.before == null) {
+            head = linkedReplacement;
+        } else {
+            linkedReplacement.before.after = linkedReplacement;
+        }
+        if (linkedReplacement.after == null) {
+            tail = linkedReplacement;
+        } else {
+            linkedReplacement.after.before = linkedReplacement;
+        }
+    }
+
+    private static int initialCapacity(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Illegal maximum size: " + maximumSize);
+        }
+        return (int) Math.min(MAXIMUM_CAPACITY, (long) (maximumSize / DEFAULT_LOAD_FACTOR) + 1);
+    }
+
+    private void linkLast(LinkedEntry<K, V> entry) {
+        entry.before = tail;
+        entry.after = null;
+        if (tail == null) {
+            head = entry;
+        } else {
+            tail.after = entry;
+        }
+        tail = entry;
+    }
+
+    private void unlink(LinkedEntry<K, V> entry) {
+        if (entry.before == null) {
+            head = entry.after;
+        } else {
+            entry.before.after = entry.after;
+        }
+        if (entry.after == null) {
+            tail = entry.before;
+        } else {
+            entry.after.before = entry.before;
+        }
+        entry.before = null;
+        entry.after = null;
+    }
+
+    public enum Policy {
+        /**
+         * Evict the least recently used entry.
+         */
+        LRU,
+        /**
+         * Admit a new entry only if it is more frequent than the least recently used one.
+         */
+        TINY_LFU
+    }
+
+    /**
+     * Count-min sketch with four 4-bit counters per key, sixteen counters in a long.
+     * After ten increments per expected entry all counters are halved.
+     */
+
+    private static final class FrequencySketch {
+
+        private static final long[] SEEDS = {
+                0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+
+        private final int sampleSize;
+
+        private int additions = 0;
+
+        FrequencySketch(int maximumSize) {
+            int length = Integer.highestOneBit(Math.max(8, Math.min(maximumSize, 1 << 28)) - 1) << 1;
+            this.table = new long[length];
+            this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * maximumSize);
+        }
+
+        int frequency(Object key) {
+            int hash = Objects.hashCode(key);
+            int frequency = 15;
+            for (long seed : SEEDS) {
+                long h = index(hash, seed);
+                frequency = Math.min(frequency, (int) (table[(int) (h >>> 32)] >>> shift(h)) & 15);
+            }
+            return frequency;
+        }
+
+        void increment(Object key) {
+            int hash = Objects.hashCode(key);
+            boolean added = false;
+            for (long seed : SEEDS) {
+                long h = index(hash, seed);
+                int index = (int) (h >>> 32);
+                int shift = shift(h);
+                if (((table[index] >>> shift) & 15) < 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                reset();
+            }
+        }
+
+        /**
+         * @return index of the long in high half and index of the counter in low bits
+         */
+
+        private long index(int hash, long seed) {
+            long h = (hash + seed) * seed;
+            h ^= h >>> 29;
+            return ((h >>> 32) & (table.length - 1)) << 32 | (h & 15);
+        }
+
+        private int shift(long index) {
+            return (int) (index & 15) << 2;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+    }
+}
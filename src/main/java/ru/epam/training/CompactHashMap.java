@@ -0,0 +1,480 @@
+package ru.epam.training;
+
+import java.util.*;
+
+/**
+ * Implementation of a Map interface which keeps no object per entry.
+ * Hashes, chain links, keys and values of entries are kept in parallel arrays, and a bucket
+ * holds the index of the first entry of its chain. Entries are dense: they occupy indexes
+ * from 0 to size - 1, and removal moves the last entry into the freed index,
+ * so iteration never visits empty slots.
+ * Map.Entry objects are created only by the iterator of entrySet().
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class CompactHashMap<K, V> implements Map<K, V> {
+
+    static final int DEFAULT_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Marker of the end of a chain and of an empty bucket.
+     */
+    private static final int NONE = -1;
+
+    private final float loadFactor;
+
+    /**
+     * Index of the first entry of every bucket.
+     */
+    private int[] buckets;
+
+    private int[] hashes;
+
+    /**
+     * Index of the next entry of the chain.
+     */
+    private int[] next;
+
+    private Object[] keys;
+
+    private Object[] values;
+
+    private int size = 0;
+
+    /**
+     * Amount of structural modifications, used by iterators to fail fast.
+     */
+    private int modCount = 0;
+
+    public CompactHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public CompactHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity amount of buckets in the initial table, rounded up to a power of two
+     * @param loadFactor      maximal average amount of entries per bucket before the table grows
+     * @throws IllegalArgumentException if initialCapacity is negative or loadFactor is not positive
+     */
+
+    public CompactHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor(initialCapacity));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key, hash(key)) != NONE;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(values[i], value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        int index = indexOf(key, hash(key));
+        return index == NONE ? null : (V) values[index];
+    }
+
+    @Override
+    public V put(K key, V value) {
+        int hash = hash(key);
+        int index = indexOf(key, hash);
+        if (index != NONE) {
+            V oldValue = (V) values[index];
+            values[index] = value;
+            return oldValue;
+        }
+        while (size == hashes.length) {
+            resize(buckets.length * 2);
+        }
+        int bucket = hash & (buckets.length - 1);
+        hashes[size] = hash;
+        keys[size] = key;
+        values[size] = value;
+        next[size] = buckets[bucket];
+        buckets[bucket] = size;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        int hash = hash(key);
+        int bucket = hash & (buckets.length - 1);
+        int previous = NONE;
+        for (int index = buckets[bucket]; index != NONE; index = next[index]) {
+            if (hashes[index] == hash && Objects.equals(keys[index], key)) {
+                V oldValue = (V) values[index];
+                unlink(bucket, previous, index);
+                return oldValue;
+            }
+            previous = index;
+        }
+        return null;
+    }
+
+    /**
+     * @param m map for insert
+     * @throws NullPointerException if m == null
+     */
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> insertionEntry : m.entrySet()) {
+            this.put(insertionEntry.getKey(), insertionEntry.getValue());
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(buckets, NONE);
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new ValueCollection();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    /**
+     * Mixes higher bits of the hash code into lower ones, which are used to choose a bucket.
+     */
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Allocates the table and entry arrays, which hold as many entries as the table may have before growing.
+     */
+
+    private void allocate(int capacity) {
+        int entryCapacity = capacity == MAXIMUM_CAPACITY
+                ? Integer.MAX_VALUE - 8 : (int) Math.max(1, Math.min(capacity * loadFactor, Integer.MAX_VALUE - 8));
+        buckets = new int[capacity];
+        Arrays.fill(buckets, NONE);
+        hashes = new int[entryCapacity];
+        next = new int[entryCapacity];
+        keys = new Object[entryCapacity];
+        values = new Object[entryCapacity];
+    }
+
+    private int indexOf(Object key, int hash) {
+        for (int index = buckets[hash & (buckets.length - 1)]; index != NONE; index = next[index]) {
+            if (hashes[index] == hash) {
+                Object currentKey = keys[index];
+                if (currentKey == key || (key != null && key.equals(currentKey))) {
+                    return index;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Unlinks the entry from its chain and moves the last entry into its index.
+     */
+
+    private void unlink(int bucket, int previous, int index) {
+        if (previous == NONE) {
+            buckets[bucket] = next[index];
+        } else {
+            next[previous] = next[index];
+        }
+        int last = size - 1;
+        if (index != last) {
+            int lastBucket = hashes[last] & (buckets.length - 1);
+            if (buckets[lastBucket] == last) {
+                buckets[lastBucket] = index;
+            } else {
+                int current = buckets[lastBucket];
+                while (next[current] != last) {
+                    current = next[current];
+                }
+                next[current] = index;
+            }
+            hashes[index] = hashes[last];
+            next[index] = next[last];
+            keys[index] = keys[last];
+            values[index] = values[last];
+        }
+        keys[last] = null;
+        values[last] = null;
+        size--;
+        modCount++;
+    }
+
+    private void removeAt(int index) {
+        int bucket = hashes[index] & (buckets.length - 1);
+        int previous = NONE;
+        for (int current = buckets[bucket]; current != index; current = next[current]) {
+            previous = current;
+        }
+        unlink(bucket, previous, index);
+    }
+
+    /**
+     * Copies entries into bigger arrays and rebuilds chains from the kept hashes, equals is never called.
+     */
+
+    private void resize(int newCapacity) {
+        if (buckets.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        int[] oldHashes = hashes;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        System.arraycopy(oldHashes, 0, hashes, 0, size);
+        System.arraycopy(oldKeys, 0, keys, 0, size);
+        System.arraycopy(oldValues, 0, values, 0, size);
+        int mask = newCapacity - 1;
+        for (int index = size - 1; index >= 0; index--) {
+            int bucket = hashes[index] & mask;
+            next[index] = buckets[bucket];
+            buckets[bucket] = index;
+        }
+    }
+
+    private class CompactEntry implements Map.Entry<K, V> {
+
+        private final K key;
+        private V value;
+
+        CompactEntry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = this.value;
+            this.value = value;
+            CompactHashMap.this.put(key, value);
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return CompactHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return CompactHashMap.this.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            int index = indexOf(o, hash(o));
+            if (index == NONE) {
+                return false;
+            }
+            removeAt(index);
+            return true;
+        }
+    }
+
+    private class ValueCollection extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return CompactHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return CompactHashMap.this.containsValue(o);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return CompactHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                int index = indexOf(entry.getKey(), hash(entry.getKey()));
+                return index != NONE && Objects.equals(values[index], entry.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                int index = indexOf(entry.getKey(), hash(entry.getKey()));
+                if (index != NONE && Objects.equals(values[index], entry.getValue())) {
+                    removeAt(index);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Walks entry indexes from 0 to size - 1. Removal moves the last entry, which is not visited yet,
+     * into the index of the removed one, so that index is visited once more.
+     */
+
+    private abstract class CompactIterator<E> implements Iterator<E> {
+        private int nextIndex = 0;
+        private int lastReturned = NONE;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size;
+        }
+
+        int nextIndex() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (nextIndex >= size) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = nextIndex++;
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == NONE) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(lastReturned);
+            nextIndex = lastReturned;
+            lastReturned = NONE;
+            expectedModCount = modCount;
+        }
+    }
+
+    private class KeyIterator extends CompactIterator<K> {
+        @Override
+        public K next() {
+            return (K) keys[nextIndex()];
+        }
+    }
+
+    private class ValueIterator extends CompactIterator<V> {
+        @Override
+        public V next() {
+            return (V) values[nextIndex()];
+        }
+    }
+
+    private class EntryIterator extends CompactIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            int index = nextIndex();
+            return new CompactEntry((K) keys[index], (V) values[index]);
+        }
+    }
+
+}
@@ -0,0 +1,725 @@
+package ru.epam.training;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Thread safe implementation of a Map interface with the same buckets as CustomHashMap.
+ * Keys are spread over segments, every segment is a separate table guarded by its own lock,
+ * so writers of different segments do not wait for each other.
+ * Readers take no locks: tables, bucket heads, links and values are published through volatile writes.
+ * Table of a segment is never changed in place while growing, a new one is built and published instead.
+ * Size is kept in a LongAdder, so counting does not make writers of different segments contend.
+ * Iterators are weakly consistent and never throw ConcurrentModificationException.
+ * Null keys and values are not allowed.
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class ConcurrentCustomHashMap<K, V> implements ConcurrentMap<K, V> {
+
+    static final int DEFAULT_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    static final int MAXIMUM_SEGMENTS = 1 << 16;
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private final Segment<K, V>[] segments;
+
+    private final int segmentShift;
+
+    private final LongAdder size = new LongAdder();
+
+    public ConcurrentCustomHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentCustomHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param initialCapacity  amount of buckets over all segments
+     * @param loadFactor       maximal average amount of entries per bucket before a segment grows
+     * @param concurrencyLevel expected amount of concurrently writing threads, rounded up to a power of two
+     * @throws IllegalArgumentException if initialCapacity is negative or loadFactor or concurrencyLevel is not positive
+     */
+
+    public ConcurrentCustomHashMap(int initialCapacity, float loadFactor, int concurrencyLevel) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Illegal concurrency level: " + concurrencyLevel);
+        }
+        int segmentsAmount = powerOfTwoFor(Math.min(concurrencyLevel, MAXIMUM_SEGMENTS));
+        int segmentCapacity = powerOfTwoFor(Math.min(MAXIMUM_CAPACITY, (initialCapacity + segmentsAmount - 1) / segmentsAmount));
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentsAmount);
+        this.segments = new Segment[segmentsAmount];
+        for (int i = 0; i < segmentsAmount; i++) {
+            segments[i] = new Segment<>(segmentCapacity, loadFactor, size);
+        }
+    }
+
+    @Override
+    public int size() {
+        long sum = size.sum();
+        return sum < 0 ? 0 : (int) Math.min(sum, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int hash = hash(key);
+        return segmentFor(hash).find(key, hash) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        Objects.requireNonNull(value);
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> table = segment.table;
+            for (int i = 0; i < table.length(); i++) {
+                for (Node<K, V> node = table.get(i); node != null; node = node.next) {
+                    if (value.equals(node.value)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        int hash = hash(key);
+        Node<K, V> node = segmentFor(hash).find(key, hash);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Objects.requireNonNull(value);
+        int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, true);
+    }
+
+    @Override
+    public V remove(Object key) {
+        int hash = hash(key);
+        return segmentFor(hash).remove(key, hash, null);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        int hash = hash(key);
+        return value != null && segmentFor(hash).remove(key, hash, value) != null;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(oldValue);
+        Objects.requireNonNull(newValue);
+        int hash = hash(key);
+        return segmentFor(hash).replace(key, hash, oldValue, newValue);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Objects.requireNonNull(value);
+        int hash = hash(key);
+        return segmentFor(hash).replace(key, hash, value);
+    }
+
+    /**
+     * Mapping function is called under the lock of the segment, so it must be short
+     * and must not modify this map.
+     */
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        int hash = hash(key);
+        Segment<K, V> segment = segmentFor(hash);
+        Node<K, V> node = segment.find(key, hash);
+        if (node != null) {
+            return node.value;
+        }
+        return segment.computeIfAbsent(key, hash, mappingFunction);
+    }
+
+    /**
+     * Remapping function is called under the lock of the segment, so it must be short
+     * and must not modify this map.
+     */
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        int hash = hash(key);
+        return segmentFor(hash).compute(key, hash, null, remappingFunction, false);
+    }
+
+    /**
+     * Remapping function is called under the lock of the segment, so it must be short
+     * and must not modify this map.
+     */
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        int hash = hash(key);
+        return segmentFor(hash).compute(key, hash, null, remappingFunction, true);
+    }
+
+    /**
+     * Remapping function is called under the lock of the segment, so it must be short
+     * and must not modify this map.
+     */
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        int hash = hash(key);
+        return segmentFor(hash).compute(key, hash, value,
+                (currentKey, oldValue) -> remappingFunction.apply(oldValue, value), true);
+    }
+
+    /**
+     * @param m map for insert
+     * @throws NullPointerException if m == null
+     */
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> insertionEntry : m.entrySet()) {
+            this.put(insertionEntry.getKey(), insertionEntry.getValue());
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new ValueCollection();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    /**
+     * Same spreading as in CustomHashMap, so buckets inside a segment are chosen in the same way.
+     *
+     * @throws NullPointerException if key is null
+     */
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int powerOfTwoFor(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * Segment is chosen by the highest bits of the multiplied hash, which are independent of the bucket bits.
+     */
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segmentShift == 32 ? segments[0] : segments[(hash * GOLDEN_RATIO) >>> segmentShift];
+    }
+
+    static final class Node<K, V> {
+
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Part of the map with its own table. All modifications are done under the lock of the segment.
+     */
+
+    static final class Segment<K, V> extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        private final float loadFactor;
+
+        private final LongAdder mapSize;
+
+        volatile AtomicReferenceArray<Node<K, V>> table;
+
+        private int count;
+
+        private int threshold;
+
+        Segment(int capacity, float loadFactor, LongAdder mapSize) {
+            this.loadFactor = loadFactor;
+            this.mapSize = mapSize;
+            setTable(new AtomicReferenceArray<>(capacity));
+        }
+
+        Node<K, V> find(Object key, int hash) {
+            AtomicReferenceArray<Node<K, V>> currentTable = table;
+            Node<K, V> node = currentTable.get(hash & (currentTable.length() - 1));
+            while (node != null) {
+                if (node.hash == hash && (node.key == key || key.equals(node.key))) {
+                    return node;
+                }
+                node = node.next;
+            }
+            return null;
+        }
+
+        V put(K key, int hash, V value, boolean onlyIfAbsent) {
+            lock();
+            try {
+                Node<K, V> node = find(key, hash);
+                if (node != null) {
+                    V oldValue = node.value;
+                    if (!onlyIfAbsent) {
+                        node.value = value;
+                    }
+                    return oldValue;
+                }
+                insert(key, hash, value);
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * @param expectedValue value which must be mapped to the key, null for any value
+         * @return removed value or null if nothing was removed
+         */
+
+        V remove(Object key, int hash, Object expectedValue) {
+            lock();
+            try {
+                Node<K, V> node = find(key, hash);
+                if (node == null || (expectedValue != null && !expectedValue.equals(node.value))) {
+                    return null;
+                }
+                unlink(node);
+                return node.value;
+            } finally {
+                unlock();
+            }
+        }
+
+        boolean replace(K key, int hash, V oldValue, V newValue) {
+            lock();
+            try {
+                Node<K, V> node = find(key, hash);
+                if (node == null || !oldValue.equals(node.value)) {
+                    return false;
+                }
+                node.value = newValue;
+                return true;
+            } finally {
+                unlock();
+            }
+        }
+
+        V replace(K key, int hash, V value) {
+            lock();
+            try {
+                Node<K, V> node = find(key, hash);
+                if (node == null) {
+                    return null;
+                }
+                V oldValue = node.value;
+                node.value = value;
+                return oldValue;
+            } finally {
+                unlock();
+            }
+        }
+
+        V computeIfAbsent(K key, int hash, Function<? super K, ? extends V> mappingFunction) {
+            lock();
+            try {
+                Node<K, V> node = find(key, hash);
+                if (node != null) {
+                    return node.value;
+                }
+                V value = mappingFunction.apply(key);
+                if (value != null) {
+                    insert(key, hash, value);
+                }
+                return value;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * Common part of compute, computeIfPresent and merge.
+         *
+         * @param absentValue value to insert without calling the function if there is no such key,
+         *                    null to call the function with null old value
+         * @param insertAbsent false if an absent key must be left absent
+         * @return new value or null if the key is absent after the call
+         */
+
+        V compute(K key, int hash, V absentValue,
+                  BiFunction<? super K, ? super V, ? extends V> remappingFunction, boolean insertAbsent) {
+            lock();
+            try {
+                Node<K, V> node = find(key, hash);
+                if (node == null) {
+                    if (!insertAbsent) {
+                        return null;
+                    }
+                    V value = absentValue != null ? absentValue : remappingFunction.apply(key, null);
+                    if (value != null) {
+                        insert(key, hash, value);
+                    }
+                    return value;
+                }
+                V value = remappingFunction.apply(key, node.value);
+                if (value == null) {
+                    unlink(node);
+                } else {
+                    node.value = value;
+                }
+                return value;
+            } finally {
+                unlock();
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> currentTable = table;
+                for (int i = 0; i < currentTable.length(); i++) {
+                    currentTable.set(i, null);
+                }
+                mapSize.add(-count);
+                count = 0;
+            } finally {
+                unlock();
+            }
+        }
+
+        private void setTable(AtomicReferenceArray<Node<K, V>> newTable) {
+            int capacity = newTable.length();
+            threshold = capacity == MAXIMUM_CAPACITY ? Integer.MAX_VALUE : (int) Math.min(capacity * loadFactor, Integer.MAX_VALUE);
+            table = newTable;
+        }
+
+        private void insert(K key, int hash, V value) {
+            if (count >= threshold) {
+                rehash();
+            }
+            AtomicReferenceArray<Node<K, V>> currentTable = table;
+            int index = hash & (currentTable.length() - 1);
+            currentTable.set(index, new Node<>(hash, key, value, currentTable.get(index)));
+            count++;
+            mapSize.increment();
+        }
+
+        /**
+         * Unlinks the node by a volatile write to its predecessor, readers standing on the node still can go further.
+         */
+
+        private void unlink(Node<K, V> node) {
+            AtomicReferenceArray<Node<K, V>> currentTable = table;
+            int index = node.hash & (currentTable.length() - 1);
+            Node<K, V> current = currentTable.get(index);
+            if (current == node) {
+                currentTable.set(index, node.next);
+            } else {
+                while (current.next != node) {
+                    current = current.next;
+                }
+                current.next = node.next;
+            }
+            count--;
+            mapSize.decrement();
+        }
+
+        /**
+         * Builds a twice bigger table without changing links of the old one, which may be read concurrently.
+         * The tail of every chain going to one bucket is reused, other nodes are copied.
+         */
+
+        private void rehash() {
+            AtomicReferenceArray<Node<K, V>> oldTable = table;
+            int oldCapacity = oldTable.length();
+            if (oldCapacity == MAXIMUM_CAPACITY) {
+                threshold = Integer.MAX_VALUE;
+                return;
+            }
+            AtomicReferenceArray<Node<K, V>> newTable = new AtomicReferenceArray<>(oldCapacity * 2);
+            int mask = newTable.length() - 1;
+            for (int i = 0; i < oldCapacity; i++) {
+                Node<K, V> head = oldTable.get(i);
+                if (head == null) {
+                    continue;
+                }
+                Node<K, V> lastRun = head;
+                int lastRunIndex = head.hash & mask;
+                for (Node<K, V> node = head.next; node != null; node = node.next) {
+                    int index = node.hash & mask;
+                    if (index != lastRunIndex) {
+                        lastRunIndex = index;
+                        lastRun = node;
+                    }
+                }
+                newTable.set(lastRunIndex, lastRun);
+                for (Node<K, V> node = head; node != lastRun; node = node.next) {
+                    int index = node.hash & mask;
+                    newTable.set(index, new Node<>(node.hash, node.key, node.value, newTable.get(index)));
+                }
+            }
+            setTable(newTable);
+        }
+    }
+
+    private class MapEntry implements Map.Entry<K, V> {
+
+        private final K key;
+        private V value;
+
+        MapEntry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * Writes the value through to the map.
+         */
+
+        @Override
+        public V setValue(V value) {
+            Objects.requireNonNull(value);
+            V oldValue = this.value;
+            this.value = value;
+            ConcurrentCustomHashMap.this.put(key, value);
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return key.equals(entry.getKey()) && value.equals(entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ value.hashCode();
+        }
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentCustomHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return ConcurrentCustomHashMap.this.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return ConcurrentCustomHashMap.this.remove(o) != null;
+        }
+    }
+
+    private class ValueCollection extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentCustomHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return ConcurrentCustomHashMap.this.containsValue(o);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentCustomHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                V value = ConcurrentCustomHashMap.this.get(entry.getKey());
+                return value != null && value.equals(entry.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                return ConcurrentCustomHashMap.this.remove(entry.getKey(), entry.getValue());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Walks tables of segments as they are at the moment of reaching them.
+     */
+
+    private abstract class ConcurrentHashMapIterator {
+        private int segmentIndex = 0;
+        private AtomicReferenceArray<Node<K, V>> table;
+        private int bucketIndex = 0;
+        private Node<K, V> nextNode;
+        private Node<K, V> lastReturned;
+
+        ConcurrentHashMapIterator() {
+            advance();
+        }
+
+        private void advance() {
+            if (nextNode != null) {
+                nextNode = nextNode.next;
+            }
+            while (nextNode == null) {
+                if (table != null && bucketIndex < table.length()) {
+                    nextNode = table.get(bucketIndex++);
+                } else if (segmentIndex < segments.length) {
+                    table = segments[segmentIndex++].table;
+                    bucketIndex = 0;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        Node<K, V> nextNode() {
+            if (nextNode == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = nextNode;
+            advance();
+            return lastReturned;
+        }
+
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentCustomHashMap.this.remove(lastReturned.key);
+            lastReturned = null;
+        }
+    }
+
+    private class KeyIterator extends ConcurrentHashMapIterator implements Iterator<K> {
+        @Override
+        public K next() {
+            return nextNode().key;
+        }
+    }
+
+    private class ValueIterator extends ConcurrentHashMapIterator implements Iterator<V> {
+        @Override
+        public V next() {
+            return nextNode().value;
+        }
+    }
+
+    private class EntryIterator extends ConcurrentHashMapIterator implements Iterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            Node<K, V> node = nextNode();
+            return new MapEntry(node.key, node.value);
+        }
+    }
+
+}
@@ -1,10 +1,25 @@
 package ru.epam.training;
 
+import java.security.SecureRandom;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
- * Simple implementation of a Map interface, don`t have ability to change size.
- * It has only default capacity.
+ * Simple implementation of a Map interface based on a table of buckets.
+ * Table length is always a power of two, so a bucket is chosen by masking the hash.
+ * Every entry keeps its hash, which is compared before calling equals.
+ * Table grows twice when amount of entries exceeds capacity * load factor.
+ * Growing is incremental: after the new table is allocated, every insertion
+ * or removal moves a few buckets from the old table, so a single put never
+ * rehashes the whole map at once.
+ * A bucket with a long chain is converted into a balanced tree, so lookups stay
+ * logarithmic even if many keys have the same hash code.
+ * With randomized hashing String keys are hashed by SipHash with a random per-map key
+ * instead of hashCode, and other hash codes are mixed with a random seed, so keys which
+ * collide in every map can not be prepared in advance.
  *
  * @param <K> key for entry of the map
  * @param <V> value for entry of the map
@@ -12,12 +27,103 @@ import java.util.*;
 
 public class CustomHashMap<K, V> implements Map<K, V> {
 
-    private static final int DEFAULT_CAPACITY = 16;
+    static final int DEFAULT_CAPACITY = 16;
 
-    private CustomEntry<K, V>[] buckets = new CustomEntry[DEFAULT_CAPACITY];
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Amount of old buckets moved to the new table on each structural modification
+     * while rehash is in progress.
+     */
+    private static final int REHASH_STEP = 4;
+
+    /**
+     * Chain length at which a bucket is converted into a tree.
+     */
+    static final int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * Tree size at which a bucket is converted back into a chain.
+     */
+    static final int UNTREEIFY_THRESHOLD = 6;
+
+    private static final SecureRandom HASH_KEYS = new SecureRandom();
+
+    private final float loadFactor;
+
+    private final boolean randomizedHashing;
+
+    /**
+     * Key of SipHash for String keys, the first half also seeds hashes of other keys.
+     */
+    private final long hashKey0;
+
+    private final long hashKey1;
+
+    private CustomEntry<K, V>[] buckets;
+
+    /**
+     * Table which is drained into buckets, null if no rehash is in progress.
+     */
+    private CustomEntry<K, V>[] oldBuckets;
+
+    /**
+     * Index of the first bucket of oldBuckets which is not moved yet.
+     */
+    private int rehashIndex;
+
+    private int threshold;
 
     private int size = 0;
 
+    /**
+     * Amount of structural modifications, used by iterators to fail fast.
+     */
+    private int modCount = 0;
+
+    public CustomHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public CustomHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity amount of buckets in the initial table, rounded up to a power of two
+     * @param loadFactor      maximal average amount of entries per bucket before the table grows
+     * @throws IllegalArgumentException if initialCapacity is negative or loadFactor is not positive
+     */
+
+    public CustomHashMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity, loadFactor, false);
+    }
+
+    /**
+     * @param initialCapacity   amount of buckets in the initial table, rounded up to a power of two
+     * @param loadFactor        maximal average amount of entries per bucket before the table grows
+     * @param randomizedHashing if keys should be hashed with a random per-map key, for keys from untrusted sources
+     * @throws IllegalArgumentException if initialCapacity is negative or loadFactor is not positive
+     */
+
+    public CustomHashMap(int initialCapacity, float loadFactor, boolean randomizedHashing) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        int capacity = tableSizeFor(initialCapacity);
+        this.loadFactor = loadFactor;
+        this.randomizedHashing = randomizedHashing;
+        this.hashKey0 = randomizedHashing ? HASH_KEYS.nextLong() : 0;
+        this.hashKey1 = randomizedHashing ? HASH_KEYS.nextLong() : 0;
+        this.buckets = new CustomEntry[capacity];
+        this.threshold = thresholdFor(capacity);
+    }
+
     @Override
     public int size() {
         return size;
@@ -30,13 +136,21 @@ public class CustomHashMap<K, V> implements Map<K, V> {
 
     @Override
     public boolean containsKey(Object key) {
-        CustomEntry<K, V> customEntry = getEntry(key);
+        CustomEntry<K, V> customEntry = getEntry(key, hash(key));
         return (customEntry == null) ? false : true;
     }
 
     @Override
     public boolean containsValue(Object value) {
-        for (CustomEntry<K, V> currentEntry : buckets) {
+        return containsValue(oldBuckets, value) || containsValue(buckets, value);
+    }
+
+    private boolean containsValue(CustomEntry<K, V>[] table, Object value) {
+        if (table == null) {
+            return false;
+        }
+        for (CustomEntry<K, V> bucket : table) {
+            CustomEntry<K, V> currentEntry = first(bucket);
             while (currentEntry != null) {
                 if (currentEntry.value == null) {
                     if (value == null) {
@@ -57,58 +171,312 @@ public class CustomHashMap<K, V> implements Map<K, V> {
 
     @Override
     public V get(Object key) {
-        CustomEntry<K, V> currentEntry = getEntry(key);
-        return (currentEntry == null) ? null : currentEntry.value;
+        CustomEntry<K, V> currentEntry = getEntry(key, hash(key));
+        if (currentEntry == null) {
+            return null;
+        }
+        afterEntryAccess(currentEntry);
+        return currentEntry.value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        CustomEntry<K, V> currentEntry = getEntry(key, hash(key));
+        if (currentEntry == null) {
+            return defaultValue;
+        }
+        afterEntryAccess(currentEntry);
+        return currentEntry.value;
     }
 
     @Override
     public V put(K key, V value) {
-        CustomEntry<K, V> currentEntry = getEntry(key);
-        int bucketNumber = hash(key);
+        int hash = hash(key);
+        CustomEntry<K, V> currentEntry = getEntry(key, hash);
         if (currentEntry == null) {
-            CustomEntry<K, V> newEntry = new CustomEntry<>(key, value);
-            newEntry.next = buckets[bucketNumber];
-            buckets[bucketNumber] = newEntry;
-            size++;
+            addEntry(hash, key, value);
             return null;
         } else {
             V oldValue = currentEntry.setValue(value);
+            afterEntryAccess(currentEntry);
             return oldValue;
         }
     }
 
+    @Override
+    public V putIfAbsent(K key, V value) {
+        int hash = hash(key);
+        CustomEntry<K, V> currentEntry = getEntry(key, hash);
+        if (currentEntry == null) {
+            addEntry(hash, key, value);
+            return null;
+        }
+        afterEntryAccess(currentEntry);
+        if (currentEntry.value == null) {
+            currentEntry.value = value;
+            return null;
+        }
+        return currentEntry.value;
+    }
+
+    /**
+     * @throws ConcurrentModificationException if the function modifies this map
+     */
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        int hash = hash(key);
+        CustomEntry<K, V> currentEntry = getEntry(key, hash);
+        if (currentEntry != null && currentEntry.value != null) {
+            afterEntryAccess(currentEntry);
+            return currentEntry.value;
+        }
+        int expectedModCount = modCount;
+        V value = mappingFunction.apply(key);
+        checkModCount(expectedModCount);
+        if (value == null) {
+            return null;
+        }
+        if (currentEntry == null) {
+            addEntry(hash, key, value);
+        } else {
+            currentEntry.value = value;
+            afterEntryAccess(currentEntry);
+        }
+        return value;
+    }
+
+    /**
+     * @throws ConcurrentModificationException if the function modifies this map
+     */
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        int hash = hash(key);
+        CustomEntry<K, V> currentEntry = getEntry(key, hash);
+        if (currentEntry == null || currentEntry.value == null) {
+            return null;
+        }
+        int expectedModCount = modCount;
+        V value = remappingFunction.apply(key, currentEntry.value);
+        checkModCount(expectedModCount);
+        if (value == null) {
+            removeEntry(key, hash);
+        } else {
+            currentEntry.value = value;
+            afterEntryAccess(currentEntry);
+        }
+        return value;
+    }
+
+    /**
+     * @throws ConcurrentModificationException if the function modifies this map
+     */
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        int hash = hash(key);
+        CustomEntry<K, V> currentEntry = getEntry(key, hash);
+        int expectedModCount = modCount;
+        V value = remappingFunction.apply(key, currentEntry == null ? null : currentEntry.value);
+        checkModCount(expectedModCount);
+        if (currentEntry == null) {
+            if (value != null) {
+                addEntry(hash, key, value);
+            }
+        } else if (value == null) {
+            removeEntry(key, hash);
+        } else {
+            currentEntry.value = value;
+            afterEntryAccess(currentEntry);
+        }
+        return value;
+    }
+
+    /**
+     * @throws ConcurrentModificationException if the function modifies this map
+     */
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        int hash = hash(key);
+        CustomEntry<K, V> currentEntry = getEntry(key, hash);
+        if (currentEntry == null) {
+            addEntry(hash, key, value);
+            return value;
+        }
+        if (currentEntry.value == null) {
+            currentEntry.value = value;
+            afterEntryAccess(currentEntry);
+            return value;
+        }
+        int expectedModCount = modCount;
+        V newValue = remappingFunction.apply(currentEntry.value, value);
+        checkModCount(expectedModCount);
+        if (newValue == null) {
+            removeEntry(key, hash);
+        } else {
+            currentEntry.value = newValue;
+            afterEntryAccess(currentEntry);
+        }
+        return newValue;
+    }
+
     @Override
     public V remove(Object key) {
-        int bucketNumber = hash(key);
+        CustomEntry<K, V> removedEntry = removeEntry(key, hash(key));
+        return removedEntry == null ? null : removedEntry.value;
+    }
+
+    /**
+     * Adds the entry for the key which is known to be absent, growing the table if needed.
+     */
+
+    private void addEntry(int hash, K key, V value) {
+        if (size >= threshold) {
+            startRehash();
+        }
+        CustomEntry<K, V> entry = linkEntry(buckets, newEntry(hash, key, value));
+        size++;
+        modCount++;
+        rehashStep();
+        afterEntryInsertion(entry);
+    }
+
+    private CustomEntry<K, V> removeEntry(Object key, int hash) {
+        CustomEntry<K, V> removedEntry = removeEntry(buckets, key, hash);
+        if (removedEntry == null && oldBuckets != null) {
+            removedEntry = removeEntry(oldBuckets, key, hash);
+        }
+        if (removedEntry != null) {
+            size--;
+            modCount++;
+            rehashStep();
+            afterEntryRemoval(removedEntry);
+        }
+        return removedEntry;
+    }
+
+    /**
+     * Creates an entry for a new mapping, subclasses may return their own kind of entries.
+     */
+
+    CustomEntry<K, V> newEntry(int hash, K key, V value) {
+        return new CustomEntry<>(hash, key, value);
+    }
+
+    /**
+     * @return amount of entries the map never exceeds, bulk insertions do not presize the table for more
+     */
+
+    int maximumEntries() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Called after the entry is found by a lookup or its value is replaced.
+     */
+
+    void afterEntryAccess(CustomEntry<K, V> entry) {
+    }
+
+    /**
+     * Called after a new entry is added and the map is consistent again.
+     */
+
+    void afterEntryInsertion(CustomEntry<K, V> entry) {
+    }
+
+    /**
+     * Called after the entry is removed from the map, but not on clear().
+     */
+
+    void afterEntryRemoval(CustomEntry<K, V> entry) {
+    }
+
+    /**
+     * Called when the entry is replaced by a tree entry with the same mapping, a new entry
+     * may be replaced before afterEntryInsertion. Links of a LinkedEntry are already copied
+     * into the replacement.
+     */
+
+    void afterEntryReplacement(CustomEntry<K, V> entry, CustomEntry<K, V> replacement) {
+    }
+
+    private void checkModCount(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private CustomEntry<K, V> removeEntry(CustomEntry<K, V>[] table, Object key, int hash) {
+        int bucketNumber = hash & (table.length - 1);
         CustomEntry<K, V> previousEntry = null;
-        CustomEntry<K, V> currentEntry = buckets[bucketNumber];
-        while (currentEntry != null) {
-            if (currentEntry.key == null) {
-                if (key == null) {
-                    V oldValue = currentEntry.value;
-                    buckets[bucketNumber] = null;
-                    size--;
-                    return oldValue;
+        CustomEntry<K, V> currentEntry = table[bucketNumber];
+        if (currentEntry instanceof TreeBin) {
+            TreeBin<K, V> bin = (TreeBin<K, V>) currentEntry;
+            TreeEntry<K, V> removedEntry = bin.find(key, hash);
+            if (removedEntry != null) {
+                bin.remove(removedEntry);
+                if (bin.count <= UNTREEIFY_THRESHOLD) {
+                    table[bucketNumber] = bin.first;
                 }
             }
-            if (currentEntry.key.equals(key)) {
-                V oldValue = currentEntry.value;
+            return removedEntry;
+        }
+        while (currentEntry != null) {
+            if (currentEntry.hash == hash && Objects.equals(currentEntry.key, key)) {
                 if (previousEntry == null) {
-                    buckets[bucketNumber] = currentEntry.next;
-                    size--;
-                    return oldValue;
+                    table[bucketNumber] = currentEntry.next;
+                } else {
+                    previousEntry.next = currentEntry.next;
                 }
-                previousEntry.next = currentEntry.next;
-                size--;
-                return oldValue;
-            } else {
-                previousEntry = currentEntry;
-                currentEntry = currentEntry.next;
+                return currentEntry;
             }
+            previousEntry = currentEntry;
+            currentEntry = currentEntry.next;
         }
         return null;
     }
 
+    /**
+     * Unlinks the given entry from its bucket of the given table without comparing keys.
+     *
+     * @return false if there is no such entry in the table
+     */
+
+    private boolean unlinkEntry(CustomEntry<K, V>[] table, CustomEntry<K, V> entry) {
+        int bucketNumber = entry.hash & (table.length - 1);
+        CustomEntry<K, V> currentEntry = table[bucketNumber];
+        if (currentEntry instanceof TreeBin) {
+            TreeBin<K, V> bin = (TreeBin<K, V>) currentEntry;
+            bin.remove((TreeEntry<K, V>) entry);
+            if (bin.count <= UNTREEIFY_THRESHOLD) {
+                table[bucketNumber] = bin.first;
+            }
+            return true;
+        }
+        CustomEntry<K, V> previousEntry = null;
+        while (currentEntry != null) {
+            if (currentEntry == entry) {
+                if (previousEntry == null) {
+                    table[bucketNumber] = currentEntry.next;
+                } else {
+                    previousEntry.next = currentEntry.next;
+                }
+                return true;
+            }
+            previousEntry = currentEntry;
+            currentEntry = currentEntry.next;
+        }
+        return false;
+    }
+
     /**
      * @param m map for insert
      * @throws NullPointerException if m == null
@@ -121,12 +489,60 @@ public class CustomHashMap<K, V> implements Map<K, V> {
         }
     }
 
+    /**
+     * Puts keys[i] to values[i] for every i. The table is grown once for all keys, up to the
+     * maximal amount of entries of the map, so no rehash is started in the middle of the batch;
+     * otherwise it costs like a loop of put. A later duplicate key wins like with sequential puts.
+     *
+     * @throws IllegalArgumentException if arrays have different lengths
+     * @throws NullPointerException     if keys == null or values == null
+     */
+
+    public void putAll(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Keys and values have different lengths: " + keys.length + ", " + values.length);
+        }
+        ensureCapacity((int) Math.min((long) size + keys.length, maximumEntries()));
+        for (int i = 0; i < keys.length; i++) {
+            put(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Looks up all keys in the given order and passes every key with its value, or with null if it is absent,
+     * to the consumer. It is a loop of get, so it costs the same as a loop of the caller and subclasses
+     * see the lookups like single ones.
+     *
+     * @throws ConcurrentModificationException if the consumer modifies this map
+     * @throws NullPointerException            if keys == null or consumer == null
+     */
+
+    public void getAll(K[] keys, BiConsumer<? super K, ? super V> consumer) {
+        Objects.requireNonNull(consumer);
+        int expectedModCount = modCount;
+        for (K key : keys) {
+            consumer.accept(key, get(key));
+            checkModCount(expectedModCount);
+        }
+    }
+
+    /**
+     * @see #getAll(Object[], BiConsumer)
+     */
+
+    public void getAll(Collection<? extends K> keys, BiConsumer<? super K, ? super V> consumer) {
+        getAll((K[]) keys.toArray(), consumer);
+    }
+
     @Override
     public void clear() {
         for (int i = 0; i < buckets.length; i++) {
             buckets[i] = null;
         }
+        oldBuckets = null;
+        rehashIndex = 0;
         size = 0;
+        modCount++;
     }
 
     @Override
@@ -144,36 +560,220 @@ public class CustomHashMap<K, V> implements Map<K, V> {
         return new EntrySet();
     }
 
+    /**
+     * @return immutable copy of this map with a minimal perfect hash, for maps which are only read after they are built
+     */
+
+    public FrozenHashMap<K, V> freeze() {
+        return new FrozenHashMap<>(this, randomizedHashing, hashKey0, hashKey1);
+    }
+
     private int hash(Object key) {
-        return key == null ? 0 : Math.abs(Objects.hashCode(key) % buckets.length);
+        return hash(key, randomizedHashing, hashKey0, hashKey1);
     }
 
-    private CustomEntry<K, V> getEntry(Object key) {
-        int bucketNumber = hash(key);
-        CustomEntry<K, V> currentEntry = buckets[bucketNumber];
-        while (currentEntry != null) {
-            if (currentEntry.key == null) {
-                if (key == null) {
-                    return currentEntry;
+    /**
+     * Mixes higher bits of the hash code into lower ones, which are used to choose a bucket.
+     * With randomized hashing String keys are hashed by SipHash, other hash codes
+     * are mixed with the seed by a multiplication.
+     */
+
+    static int hash(Object key, boolean randomizedHashing, long hashKey0, long hashKey1) {
+        if (randomizedHashing) {
+            if (key instanceof String) {
+                long h = SipHash.hash(hashKey0, hashKey1, (String) key);
+                return (int) (h ^ (h >>> 32));
+            }
+            int h = (Objects.hashCode(key) ^ (int) hashKey0) * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+        int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    private int thresholdFor(int capacity) {
+        return capacity == MAXIMUM_CAPACITY ? Integer.MAX_VALUE : (int) Math.min(capacity * loadFactor, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Allocates a table twice bigger than the current one and makes the current one old.
+     * If previous rehash is still not finished, it is completed first.
+     */
+
+    private void startRehash() {
+        if (oldBuckets != null) {
+            rehashStep(Integer.MAX_VALUE);
+        }
+        if (buckets.length == MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        int newCapacity = buckets.length * 2;
+        oldBuckets = buckets;
+        buckets = new CustomEntry[newCapacity];
+        rehashIndex = 0;
+        threshold = thresholdFor(newCapacity);
+    }
+
+    /**
+     * Starts a rehash into a table which holds the given amount of entries without growing again.
+     * The old table is drained by steps of later modifications like after startRehash, so no pause
+     * is longer than usual. Nothing is done while a previous rehash is in progress, the table then
+     * grows by doubling.
+     */
+
+    private void ensureCapacity(int entryCount) {
+        if (entryCount <= threshold || oldBuckets != null) {
+            return;
+        }
+        int newCapacity = tableSizeFor((int) Math.min(entryCount / loadFactor + 1, MAXIMUM_CAPACITY));
+        if (newCapacity <= buckets.length) {
+            return;
+        }
+        oldBuckets = buckets;
+        buckets = new CustomEntry[newCapacity];
+        rehashIndex = 0;
+        threshold = thresholdFor(newCapacity);
+    }
+
+    private void rehashStep() {
+        if (oldBuckets != null) {
+            rehashStep(REHASH_STEP);
+        }
+    }
+
+    /**
+     * Moves up to the given amount of non-empty buckets from oldBuckets to buckets.
+     * Empty buckets are skipped too, but not more than ten for each bucket to move.
+     */
+
+    private void rehashStep(int bucketsToMove) {
+        int emptyVisits = bucketsToMove > Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE : bucketsToMove * 10;
+        while (bucketsToMove > 0 && rehashIndex < oldBuckets.length) {
+            CustomEntry<K, V> currentEntry = first(oldBuckets[rehashIndex]);
+            if (currentEntry == null) {
+                rehashIndex++;
+                if (--emptyVisits == 0) {
+                    break;
                 }
-            } else {
-                if (key.equals(currentEntry.key)) {
+                continue;
+            }
+            while (currentEntry != null) {
+                CustomEntry<K, V> nextEntry = currentEntry.next;
+                linkEntry(buckets, currentEntry);
+                currentEntry = nextEntry;
+            }
+            oldBuckets[rehashIndex++] = null;
+            bucketsToMove--;
+        }
+        if (rehashIndex == oldBuckets.length) {
+            oldBuckets = null;
+            rehashIndex = 0;
+        }
+    }
+
+    /**
+     * Adds the entry which is known to be absent to its bucket of the given table.
+     * A chain which becomes too long is converted into a tree.
+     *
+     * @return the entry as it is stored in the table, a tree entry may replace the given one
+     */
+
+    private CustomEntry<K, V> linkEntry(CustomEntry<K, V>[] table, CustomEntry<K, V> entry) {
+        int bucketNumber = entry.hash & (table.length - 1);
+        CustomEntry<K, V> head = table[bucketNumber];
+        if (!(head instanceof TreeBin)) {
+            int chainLength = 1;
+            for (CustomEntry<K, V> currentEntry = head; currentEntry != null && chainLength < TREEIFY_THRESHOLD;
+                 currentEntry = currentEntry.next) {
+                chainLength++;
+            }
+            if (chainLength < TREEIFY_THRESHOLD) {
+                entry.next = head;
+                table[bucketNumber] = entry;
+                return entry;
+            }
+            head = treeify(head);
+            table[bucketNumber] = head;
+        }
+        TreeEntry<K, V> treeEntry = toTreeEntry(entry);
+        ((TreeBin<K, V>) head).add(treeEntry);
+        return treeEntry;
+    }
+
+    private TreeBin<K, V> treeify(CustomEntry<K, V> head) {
+        TreeBin<K, V> bin = new TreeBin<>();
+        CustomEntry<K, V> currentEntry = head;
+        while (currentEntry != null) {
+            CustomEntry<K, V> nextEntry = currentEntry.next;
+            bin.add(toTreeEntry(currentEntry));
+            currentEntry = nextEntry;
+        }
+        return bin;
+    }
+
+    private TreeEntry<K, V> toTreeEntry(CustomEntry<K, V> entry) {
+        if (entry instanceof TreeEntry) {
+            return (TreeEntry<K, V>) entry;
+        }
+        TreeEntry<K, V> treeEntry = new TreeEntry<>(entry.hash, entry.key, entry.value);
+        if (entry instanceof LinkedEntry) {
+            treeEntry.before = ((LinkedEntry<K, V>) entry).before;
+            treeEntry.after = ((LinkedEntry<K, V>) entry).after;
+        }
+        afterEntryReplacement(entry, treeEntry);
+        return treeEntry;
+    }
+
+    /**
+     * @return first entry of the chain stored in the bucket, either directly or inside a tree bin
+     */
+
+    private CustomEntry<K, V> first(CustomEntry<K, V> bucket) {
+        return bucket instanceof TreeBin ? ((TreeBin<K, V>) bucket).first : bucket;
+    }
+
+    private CustomEntry<K, V> getEntry(Object key, int hash) {
+        CustomEntry<K, V> currentEntry = getEntry(buckets, key, hash);
+        if (currentEntry == null && oldBuckets != null) {
+            currentEntry = getEntry(oldBuckets, key, hash);
+        }
+        return currentEntry;
+    }
+
+    private CustomEntry<K, V> getEntry(CustomEntry<K, V>[] table, Object key, int hash) {
+        CustomEntry<K, V> currentEntry = table[hash & (table.length - 1)];
+        if (currentEntry instanceof TreeBin) {
+            return ((TreeBin<K, V>) currentEntry).find(key, hash);
+        }
+        while (currentEntry != null) {
+            if (currentEntry.hash == hash) {
+                Object currentKey = currentEntry.key;
+                if (currentKey == key || (key != null && key.equals(currentKey))) {
                     return currentEntry;
-                } else {
-                    currentEntry = currentEntry.next;
                 }
             }
+            currentEntry = currentEntry.next;
         }
         return null;
     }
 
-    private class CustomEntry<K, V> implements Map.Entry<K, V> {
+    static class CustomEntry<K, V> implements Map.Entry<K, V> {
 
-        private final K key;
-        private V value;
-        private CustomEntry<K, V> next = null;
+        final int hash;
+        final K key;
+        V value;
+        CustomEntry<K, V> next = null;
 
-        CustomEntry(K key, V value) {
+        CustomEntry(int hash, K key, V value) {
+            this.hash = hash;
             this.key = key;
             this.value = value;
         }
@@ -207,12 +807,248 @@ public class CustomHashMap<K, V> implements Map<K, V> {
         }
     }
 
+    /**
+     * Entry with links of an additional list kept by a subclass, e.g. in access order.
+     * Tree entries are linked entries too, so the list survives treeification.
+     */
+
+    static class LinkedEntry<K, V> extends CustomEntry<K, V> {
+
+        LinkedEntry<K, V> before;
+        LinkedEntry<K, V> after;
+
+        LinkedEntry(int hash, K key, V value) {
+            super(hash, key, value);
+        }
+    }
+
+    /**
+     * Entry of a treeified bucket. Besides the tree links it keeps the previous entry
+     * of the bucket list, so it can be unlinked without a search.
+     */
+
+    private static final class TreeEntry<K, V> extends LinkedEntry<K, V> {
+
+        private int sequence;
+        private int height = 1;
+        private TreeEntry<K, V> left;
+        private TreeEntry<K, V> right;
+        private TreeEntry<K, V> previous;
+
+        TreeEntry(int hash, K key, V value) {
+            super(hash, key, value);
+        }
+    }
+
+    /**
+     * Content of a treeified bucket: AVL tree of entries ordered by hash code, then by key
+     * class name, then by compareTo for Comparable keys of the same class and at last by
+     * insertion sequence. Entries are also linked in a list for iteration.
+     */
+
+    private static final class TreeBin<K, V> extends CustomEntry<K, V> {
+
+        private TreeEntry<K, V> root;
+        private TreeEntry<K, V> first;
+        private int count;
+        private int sequence;
+
+        TreeBin() {
+            super(0, null, null);
+        }
+
+        TreeEntry<K, V> find(Object key, int hash) {
+            return find(root, hash, key);
+        }
+
+        /**
+         * Goes down by hash, class and compareTo, equals is called only when they all are equal.
+         * If keys still can not be ordered, both subtrees are searched.
+         */
+
+        private TreeEntry<K, V> find(TreeEntry<K, V> node, int hash, Object key) {
+            while (node != null) {
+                int compared = Integer.compare(hash, node.hash);
+                if (compared == 0) {
+                    compared = compareClasses(key, node.key);
+                }
+                if (compared == 0) {
+                    compared = compareComparables(key, node.key);
+                    if (compared == 0) {
+                        if (Objects.equals(key, node.key)) {
+                            return node;
+                        }
+                        TreeEntry<K, V> found = find(node.right, hash, key);
+                        if (found != null) {
+                            return found;
+                        }
+                        compared = -1;
+                    }
+                }
+                node = compared < 0 ? node.left : node.right;
+            }
+            return null;
+        }
+
+        void add(TreeEntry<K, V> entry) {
+            entry.sequence = sequence++;
+            entry.left = null;
+            entry.right = null;
+            entry.height = 1;
+            root = insert(root, entry);
+            entry.previous = null;
+            entry.next = first;
+            if (first != null) {
+                first.previous = entry;
+            }
+            first = entry;
+            count++;
+        }
+
+        void remove(TreeEntry<K, V> entry) {
+            root = delete(root, entry);
+            if (entry.previous == null) {
+                first = (TreeEntry<K, V>) entry.next;
+            } else {
+                entry.previous.next = entry.next;
+            }
+            if (entry.next != null) {
+                ((TreeEntry<K, V>) entry.next).previous = entry.previous;
+            }
+            count--;
+        }
+
+        private TreeEntry<K, V> insert(TreeEntry<K, V> node, TreeEntry<K, V> entry) {
+            if (node == null) {
+                return entry;
+            }
+            if (compareEntries(entry, node) < 0) {
+                node.left = insert(node.left, entry);
+            } else {
+                node.right = insert(node.right, entry);
+            }
+            return balance(node);
+        }
+
+        private TreeEntry<K, V> delete(TreeEntry<K, V> node, TreeEntry<K, V> entry) {
+            if (node == null) {
+                return null;
+            }
+            int compared = compareEntries(entry, node);
+            if (compared < 0) {
+                node.left = delete(node.left, entry);
+            } else if (compared > 0) {
+                node.right = delete(node.right, entry);
+            } else {
+                if (node.left == null) {
+                    return node.right;
+                }
+                if (node.right == null) {
+                    return node.left;
+                }
+                TreeEntry<K, V> successor = node.right;
+                while (successor.left != null) {
+                    successor = successor.left;
+                }
+                successor.right = deleteMin(node.right);
+                successor.left = node.left;
+                node = successor;
+            }
+            return balance(node);
+        }
+
+        private TreeEntry<K, V> deleteMin(TreeEntry<K, V> node) {
+            if (node.left == null) {
+                return node.right;
+            }
+            node.left = deleteMin(node.left);
+            return balance(node);
+        }
+
+        private int compareEntries(TreeEntry<K, V> first, TreeEntry<K, V> second) {
+            int compared = Integer.compare(first.hash, second.hash);
+            if (compared == 0) {
+                compared = compareClasses(first.key, second.key);
+            }
+            if (compared == 0) {
+                compared = compareComparables(first.key, second.key);
+            }
+            return compared == 0 ? Integer.compare(first.sequence, second.sequence) : compared;
+        }
+
+        private int compareClasses(Object first, Object second) {
+            if (first == null || second == null) {
+                return first == second ? 0 : (first == null ? -1 : 1);
+            }
+            if (first.getClass() == second.getClass()) {
+                return 0;
+            }
+            return first.getClass().getName().compareTo(second.getClass().getName());
+        }
+
+        private int compareComparables(Object first, Object second) {
+            if (first instanceof Comparable && second != null && first.getClass() == second.getClass()) {
+                return ((Comparable) first).compareTo(second);
+            }
+            return 0;
+        }
+
+        private int height(TreeEntry<K, V> node) {
+            return node == null ? 0 : node.height;
+        }
+
+        private void updateHeight(TreeEntry<K, V> node) {
+            node.height = Math.max(height(node.left), height(node.right)) + 1;
+        }
+
+        private TreeEntry<K, V> balance(TreeEntry<K, V> node) {
+            updateHeight(node);
+            int balance = height(node.left) - height(node.right);
+            if (balance > 1) {
+                if (height(node.left.left) < height(node.left.right)) {
+                    node.left = rotateLeft(node.left);
+                }
+                return rotateRight(node);
+            }
+            if (balance < -1) {
+                if (height(node.right.right) < height(node.right.left)) {
+                    node.right = rotateRight(node.right);
+                }
+                return rotateLeft(node);
+            }
+            return node;
+        }
+
+        private TreeEntry<K, V> rotateRight(TreeEntry<K, V> node) {
+            TreeEntry<K, V> newRoot = node.left;
+            node.left = newRoot.right;
+            newRoot.right = node;
+            updateHeight(node);
+            updateHeight(newRoot);
+            return newRoot;
+        }
+
+        private TreeEntry<K, V> rotateLeft(TreeEntry<K, V> node) {
+            TreeEntry<K, V> newRoot = node.right;
+            node.right = newRoot.left;
+            newRoot.left = node;
+            updateHeight(node);
+            updateHeight(newRoot);
+            return newRoot;
+        }
+    }
+
     private class KeySet extends AbstractSet<K> {
         @Override
         public Iterator<K> iterator() {
             return new KeyIterator();
         }
 
+        @Override
+        public Spliterator<K> spliterator() {
+            return new KeySpliterator(0, -1, 0, 0);
+        }
+
         @Override
         public int size() {
             return CustomHashMap.this.size();
@@ -236,6 +1072,11 @@ public class CustomHashMap<K, V> implements Map<K, V> {
             return new ValueIterator();
         }
 
+        @Override
+        public Spliterator<V> spliterator() {
+            return new ValueSpliterator(0, -1, 0, 0);
+        }
+
         @Override
         public int size() {
             return CustomHashMap.this.size();
@@ -253,6 +1094,11 @@ public class CustomHashMap<K, V> implements Map<K, V> {
             return new EntryIterator();
         }
 
+        @Override
+        public Spliterator<Entry<K, V>> spliterator() {
+            return new EntrySpliterator(0, -1, 0, 0);
+        }
+
         @Override
         public int size() {
             return CustomHashMap.this.size();
@@ -275,50 +1121,272 @@ public class CustomHashMap<K, V> implements Map<K, V> {
         }
     }
 
-    private abstract class HashMapIterator implements Iterator {
-        CustomEntry<K, V>[] entries = new CustomEntry[size];
-        int position = 0;
+    /**
+     * Walks buckets in place: first the old table while rehash is in progress, then the current one.
+     * Tables do not change while the iterator is valid, because rehash steps are made only
+     * by structural modifications, which make the iterator fail.
+     */
+
+    private abstract class HashMapIterator<E> implements Iterator<E> {
+        private CustomEntry<K, V>[] table;
+        private int bucketIndex = 0;
+        private CustomEntry<K, V> nextEntry;
+        private CustomEntry<K, V>[] currentTable;
+        private CustomEntry<K, V> currentEntry;
+        private int expectedModCount = modCount;
 
         HashMapIterator() {
-            for (CustomEntry currentEntry : buckets) {
-                while (currentEntry != null) {
-                    entries[position] = currentEntry;
-                    position++;
-                    currentEntry = currentEntry.next;
+            table = oldBuckets != null ? oldBuckets : buckets;
+            advance();
+        }
+
+        private void advance() {
+            while (nextEntry == null) {
+                if (bucketIndex < table.length) {
+                    nextEntry = first(table[bucketIndex++]);
+                } else if (table != buckets) {
+                    table = buckets;
+                    bucketIndex = 0;
+                } else {
+                    return;
                 }
             }
-            position = 0;
         }
 
         @Override
         public boolean hasNext() {
-            return position < entries.length;
+            return nextEntry != null;
+        }
+
+        CustomEntry<K, V> nextEntry() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (nextEntry == null) {
+                throw new NoSuchElementException();
+            }
+            currentEntry = nextEntry;
+            currentTable = table;
+            nextEntry = nextEntry.next;
+            advance();
+            return currentEntry;
         }
 
+        /**
+         * Unlinks the last returned entry from its bucket, no rehash step is made.
+         */
+
         @Override
         public void remove() {
-            CustomHashMap.this.remove(entries[position++].key);
+            if (currentEntry == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            unlinkEntry(currentTable, currentEntry);
+            size--;
+            expectedModCount = ++modCount;
+            afterEntryRemoval(currentEntry);
+            currentEntry = null;
         }
     }
 
-    private class KeyIterator extends HashMapIterator {
+    private class KeyIterator extends HashMapIterator<K> {
         @Override
         public K next() {
-            return entries[position++].key;
+            return nextEntry().key;
         }
     }
 
-    private class ValueIterator extends HashMapIterator {
+    private class ValueIterator extends HashMapIterator<V> {
         @Override
         public V next() {
-            return entries[position++].value;
+            return nextEntry().value;
         }
     }
 
-    private class EntryIterator extends HashMapIterator {
+    private class EntryIterator extends HashMapIterator<Entry<K, V>> {
         @Override
-        public CustomEntry<K, V> next() {
-            return entries[position++];
+        public Entry<K, V> next() {
+            return nextEntry();
+        }
+    }
+
+    /**
+     * Covers a range of buckets. While rehash is in progress, the old table and the current one
+     * are seen as one sequence of buckets, the old table goes first. Splitting halves the range.
+     * Tables are bound on the first use, only the root spliterator knows the exact size.
+     */
+
+    private abstract class HashMapSpliterator<E> implements Spliterator<E> {
+        private CustomEntry<K, V>[] oldTable;
+        private CustomEntry<K, V>[] table;
+        private int index;
+        private int fence;
+        private int estimatedSize;
+        private int expectedModCount;
+        private CustomEntry<K, V> currentEntry;
+
+        HashMapSpliterator(int origin, int fence, int estimatedSize, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.estimatedSize = estimatedSize;
+            this.expectedModCount = expectedModCount;
+        }
+
+        abstract E element(CustomEntry<K, V> entry);
+
+        abstract HashMapSpliterator<E> newSpliterator(int origin, int fence, int estimatedSize, int expectedModCount);
+
+        private int getFence() {
+            if (fence < 0) {
+                oldTable = oldBuckets;
+                table = buckets;
+                estimatedSize = size;
+                expectedModCount = modCount;
+                fence = oldLength() + table.length;
+            }
+            return fence;
+        }
+
+        private int oldLength() {
+            return oldTable == null ? 0 : oldTable.length;
+        }
+
+        private CustomEntry<K, V> bucket(int position) {
+            int oldLength = oldLength();
+            return position < oldLength ? oldTable[position] : table[position - oldLength];
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int high = getFence();
+            int low = index;
+            int middle = (low + high) >>> 1;
+            if (low >= middle || currentEntry != null) {
+                return null;
+            }
+            index = middle;
+            estimatedSize >>>= 1;
+            HashMapSpliterator<E> prefix = newSpliterator(low, middle, estimatedSize, expectedModCount);
+            prefix.oldTable = oldTable;
+            prefix.table = table;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int high = getFence();
+            while (currentEntry != null || index < high) {
+                if (currentEntry == null) {
+                    currentEntry = first(bucket(index++));
+                } else {
+                    CustomEntry<K, V> entry = currentEntry;
+                    currentEntry = currentEntry.next;
+                    action.accept(element(entry));
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int high = getFence();
+            CustomEntry<K, V> entry = currentEntry;
+            currentEntry = null;
+            while (true) {
+                while (entry != null) {
+                    action.accept(element(entry));
+                    entry = entry.next;
+                }
+                if (index >= high) {
+                    break;
+                }
+                entry = first(bucket(index++));
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            getFence();
+            return estimatedSize;
+        }
+
+        int sizedCharacteristics() {
+            return fence < 0 || estimatedSize == size ? SIZED : 0;
+        }
+    }
+
+    private class KeySpliterator extends HashMapSpliterator<K> {
+        KeySpliterator(int origin, int fence, int estimatedSize, int expectedModCount) {
+            super(origin, fence, estimatedSize, expectedModCount);
+        }
+
+        @Override
+        K element(CustomEntry<K, V> entry) {
+            return entry.key;
+        }
+
+        @Override
+        HashMapSpliterator<K> newSpliterator(int origin, int fence, int estimatedSize, int expectedModCount) {
+            return new KeySpliterator(origin, fence, estimatedSize, expectedModCount);
+        }
+
+        @Override
+        public int characteristics() {
+            return sizedCharacteristics() | DISTINCT;
+        }
+    }
+
+    private class ValueSpliterator extends HashMapSpliterator<V> {
+        ValueSpliterator(int origin, int fence, int estimatedSize, int expectedModCount) {
+            super(origin, fence, estimatedSize, expectedModCount);
+        }
+
+        @Override
+        V element(CustomEntry<K, V> entry) {
+            return entry.value;
+        }
+
+        @Override
+        HashMapSpliterator<V> newSpliterator(int origin, int fence, int estimatedSize, int expectedModCount) {
+            return new ValueSpliterator(origin, fence, estimatedSize, expectedModCount);
+        }
+
+        @Override
+        public int characteristics() {
+            return sizedCharacteristics();
+        }
+    }
+
+    private class EntrySpliterator extends HashMapSpliterator<Entry<K, V>> {
+        EntrySpliterator(int origin, int fence, int estimatedSize, int expectedModCount) {
+            super(origin, fence, estimatedSize, expectedModCount);
+        }
+
+        @Override
+        Entry<K, V> element(CustomEntry<K, V> entry) {
+            return entry;
+        }
+
+        @Override
+        HashMapSpliterator<Entry<K, V>> newSpliterator(int origin, int fence, int estimatedSize, int expectedModCount) {
+            return new EntrySpliterator(origin, fence, estimatedSize, expectedModCount);
+        }
+
+        @Override
+        public int characteristics() {
+            return sizedCharacteristics() | DISTINCT;
         }
     }
 
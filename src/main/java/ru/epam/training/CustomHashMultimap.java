@@ -0,0 +1,463 @@
+package ru.epam.training;
+
+import java.util.*;
+
+/**
+ * Hash multimap, which maps a key to a collection of values, duplicates are allowed.
+ * Values of a key are kept in the bucket entry of a CustomHashMap in the most compact form:
+ * a single value is kept inline, up to SMALL_LIMIT values are kept in an array of exact length,
+ * more values are kept in a CustomArrayList. Collections returned by get() are live views and
+ * copy nothing.
+ *
+ * @param <K> key of the multimap
+ * @param <V> value of the multimap
+ */
+
+public class CustomHashMultimap<K, V> {
+
+    /**
+     * Maximal amount of values which are kept in an array, the array is copied on every change.
+     */
+    static final int SMALL_LIMIT = 4;
+
+    /**
+     * Maps a key to its value, to an Object[] or to a CustomArrayList of its values.
+     */
+    private final CustomHashMap<K, Object> map;
+
+    /**
+     * Amount of values of all keys.
+     */
+    private int size = 0;
+
+    /**
+     * Amount of modifications, used by iterators to fail fast.
+     */
+    private int modCount = 0;
+
+    public CustomHashMultimap() {
+        map = new CustomHashMap<>();
+    }
+
+    /**
+     * @param expectedKeys amount of keys the multimap holds without growing
+     * @throws IllegalArgumentException if expectedKeys is negative
+     */
+
+    public CustomHashMultimap(int expectedKeys) {
+        if (expectedKeys < 0) {
+            throw new IllegalArgumentException("Illegal expected keys: " + expectedKeys);
+        }
+        map = new CustomHashMap<>((int) Math.min(expectedKeys / 0.75f + 1, Integer.MAX_VALUE));
+    }
+
+    /**
+     * @return amount of values of all keys
+     */
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    public boolean containsEntry(Object key, Object value) {
+        Object stored = map.get(key);
+        return stored != null && indexOf(stored, value) >= 0;
+    }
+
+    /**
+     * @return live view of values of the key, empty if there are none, add() puts into the multimap
+     */
+
+    public Collection<V> get(K key) {
+        return new ValueView(key);
+    }
+
+    public boolean put(K key, V value) {
+        map.compute(key, (k, stored) -> append(stored, value));
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Adds all values at once, so the storage of the key is changed at most once.
+     *
+     * @return true if values is not empty
+     * @throws NullPointerException if values == null
+     */
+
+    public boolean putAll(K key, Collection<? extends V> values) {
+        if (values.isEmpty()) {
+            return false;
+        }
+        map.compute(key, (k, stored) -> appendAll(stored, values));
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes one occurrence of the value from values of the key.
+     */
+
+    public boolean remove(Object key, Object value) {
+        int oldSize = size;
+        map.computeIfPresent((K) key, (k, stored) -> removeValue(stored, value));
+        if (size == oldSize) {
+            return false;
+        }
+        modCount++;
+        return true;
+    }
+
+    /**
+     * @return removed values of the key, empty if there were none
+     */
+
+    public Collection<V> removeAll(Object key) {
+        Object stored = map.remove(key);
+        if (stored == null) {
+            return Collections.emptyList();
+        }
+        size -= count(stored);
+        modCount++;
+        return new DetachedValues(stored);
+    }
+
+    public void clear() {
+        map.clear();
+        size = 0;
+        modCount++;
+    }
+
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    private static boolean canInline(Object value) {
+        return value != null && !(value instanceof Object[]) && !(value instanceof CustomArrayList);
+    }
+
+    private static int count(Object stored) {
+        if (stored instanceof CustomArrayList) {
+            return ((CustomArrayList<?>) stored).size();
+        }
+        if (stored instanceof Object[]) {
+            return ((Object[]) stored).length;
+        }
+        return 1;
+    }
+
+    private static Object valueAt(Object stored, int index) {
+        if (stored instanceof CustomArrayList) {
+            return ((CustomArrayList<?>) stored).get(index);
+        }
+        if (stored instanceof Object[]) {
+            return ((Object[]) stored)[index];
+        }
+        return stored;
+    }
+
+    private static int indexOf(Object stored, Object value) {
+        if (stored instanceof CustomArrayList) {
+            return ((CustomArrayList<?>) stored).indexOf(value);
+        }
+        if (stored instanceof Object[]) {
+            Object[] array = (Object[]) stored;
+            for (int i = 0; i < array.length; i++) {
+                if (Objects.equals(array[i], value)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        return stored.equals(value) ? 0 : -1;
+    }
+
+    private Object append(Object stored, V value) {
+        size++;
+        if (stored == null) {
+            return canInline(value) ? value : new Object[]{value};
+        }
+        if (stored instanceof CustomArrayList) {
+            ((CustomArrayList<V>) stored).add(value);
+            return stored;
+        }
+        if (!(stored instanceof Object[])) {
+            return new Object[]{stored, value};
+        }
+        Object[] array = (Object[]) stored;
+        if (array.length < SMALL_LIMIT) {
+            Object[] newArray = Arrays.copyOf(array, array.length + 1);
+            newArray[array.length] = value;
+            return newArray;
+        }
+        CustomArrayList<Object> list = new CustomArrayList<>();
+        list.addAll(Arrays.asList(array));
+        list.add(value);
+        return list;
+    }
+
+    private Object appendAll(Object stored, Collection<? extends V> values) {
+        int oldCount = stored == null ? 0 : count(stored);
+        size += values.size();
+        if (stored instanceof CustomArrayList) {
+            ((CustomArrayList<V>) stored).addAll(values);
+            return stored;
+        }
+        int newCount = oldCount + values.size();
+        if (newCount == 1) {
+            V value = values.iterator().next();
+            return canInline(value) ? value : new Object[]{value};
+        }
+        if (newCount <= SMALL_LIMIT) {
+            Object[] newArray = new Object[newCount];
+            for (int i = 0; i < oldCount; i++) {
+                newArray[i] = valueAt(stored, i);
+            }
+            int i = oldCount;
+            for (V value : values) {
+                newArray[i++] = value;
+            }
+            return newArray;
+        }
+        CustomArrayList<Object> list = new CustomArrayList<>();
+        for (int i = 0; i < oldCount; i++) {
+            list.add(valueAt(stored, i));
+        }
+        list.addAll(values);
+        return list;
+    }
+
+    /**
+     * @return new storage without one occurrence of the value, or null if no values are left
+     */
+
+    private Object removeValue(Object stored, Object value) {
+        int index = indexOf(stored, value);
+        return index < 0 ? stored : removeAt(stored, index);
+    }
+
+    /**
+     * @return new storage without the value at the index, or null if no values are left
+     */
+
+    private Object removeAt(Object stored, int index) {
+        size--;
+        if (stored instanceof CustomArrayList) {
+            CustomArrayList<?> list = (CustomArrayList<?>) stored;
+            list.remove(index);
+            return list.isEmpty() ? null : list;
+        }
+        if (!(stored instanceof Object[]) || ((Object[]) stored).length == 1) {
+            return null;
+        }
+        Object[] array = (Object[]) stored;
+        if (array.length == 2) {
+            Object remaining = array[1 - index];
+            return canInline(remaining) ? remaining : new Object[]{remaining};
+        }
+        Object[] newArray = new Object[array.length - 1];
+        System.arraycopy(array, 0, newArray, 0, index);
+        System.arraycopy(array, index + 1, newArray, index, newArray.length - index);
+        return newArray;
+    }
+
+    /**
+     * Values of a key, read from the map on every call.
+     */
+
+    private class ValueView extends AbstractCollection<V> {
+
+        private final K key;
+
+        ValueView(K key) {
+            this.key = key;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator(key, map.get(key), true);
+        }
+
+        @Override
+        public int size() {
+            Object stored = map.get(key);
+            return stored == null ? 0 : count(stored);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsEntry(key, o);
+        }
+
+        @Override
+        public boolean add(V v) {
+            return put(key, v);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return CustomHashMultimap.this.remove(key, o);
+        }
+
+        @Override
+        public void clear() {
+            CustomHashMultimap.this.removeAll(key);
+        }
+    }
+
+    /**
+     * Values which are removed from the multimap.
+     */
+
+    private class DetachedValues extends AbstractCollection<V> {
+
+        private final Object stored;
+
+        DetachedValues(Object stored) {
+            this.stored = stored;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator(null, stored, false);
+        }
+
+        @Override
+        public int size() {
+            return count(stored);
+        }
+    }
+
+    /**
+     * Arrays are never changed after they are stored, so only a list of a live view can be modified during iteration.
+     * Removal through the iterator of a live view replaces the stored array and keeps iterating the old one,
+     * a list is changed in place.
+     */
+
+    private class ValueIterator implements Iterator<V> {
+        private final K key;
+        private final Object stored;
+        private final boolean live;
+        private final boolean failFast;
+        private int count;
+        private int index = 0;
+        private int lastIndex = -1;
+
+        /**
+         * Amount of values removed from an iterated array, so they are not in the stored array anymore.
+         */
+        private int removed = 0;
+        private int expectedModCount = modCount;
+
+        ValueIterator(K key, Object stored, boolean live) {
+            this.key = key;
+            this.stored = stored;
+            this.count = stored == null ? 0 : count(stored);
+            this.live = live;
+            this.failFast = live && stored instanceof CustomArrayList;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < count;
+        }
+
+        @Override
+        public V next() {
+            if (failFast && modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (index >= count) {
+                throw new NoSuchElementException();
+            }
+            lastIndex = index;
+            return (V) valueAt(stored, index++);
+        }
+
+        /**
+         * @throws UnsupportedOperationException if values are removed from the multimap already
+         */
+
+        @Override
+        public void remove() {
+            if (!live) {
+                throw new UnsupportedOperationException();
+            }
+            if (lastIndex < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            int storedIndex = lastIndex - removed;
+            map.computeIfPresent(key, (k, current) -> removeAt(current, storedIndex));
+            if (stored instanceof CustomArrayList) {
+                index--;
+                count--;
+            } else {
+                removed++;
+            }
+            lastIndex = -1;
+            expectedModCount = ++modCount;
+        }
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!map.containsKey(o)) {
+                return false;
+            }
+            CustomHashMultimap.this.removeAll(o);
+            return true;
+        }
+    }
+
+    private class KeyIterator implements Iterator<K> {
+        private final Iterator<Map.Entry<K, Object>> iterator = map.entrySet().iterator();
+        private Object lastStored;
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public K next() {
+            Map.Entry<K, Object> entry = iterator.next();
+            lastStored = entry.getValue();
+            return entry.getKey();
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+            size -= count(lastStored);
+            modCount++;
+        }
+    }
+
+}
@@ -0,0 +1,495 @@
+package ru.epam.training;
+
+import java.util.*;
+
+/**
+ * Implementation of a Set interface which keeps elements only, without value slots.
+ * Hashes, chain links and elements are kept in parallel arrays like in CompactHashMap, entries are
+ * dense and removal moves the last entry into the freed index.
+ * Bulk operations iterate the smaller side, presize the table once, and reuse hashes cached by
+ * another CustomHashSet instead of calling hashCode again.
+ *
+ * @param <E> element of the set
+ */
+
+public class CustomHashSet<E> extends AbstractSet<E> implements Set<E> {
+
+    static final int DEFAULT_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Marker of the end of a chain and of an empty bucket.
+     */
+    private static final int NONE = -1;
+
+    private final float loadFactor;
+
+    /**
+     * Index of the first entry of every bucket.
+     */
+    private int[] buckets;
+
+    private int[] hashes;
+
+    /**
+     * Index of the next entry of the chain.
+     */
+    private int[] next;
+
+    private Object[] elements;
+
+    private int size = 0;
+
+    /**
+     * Amount of structural modifications, used by iterators to fail fast.
+     */
+    private int modCount = 0;
+
+    public CustomHashSet() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public CustomHashSet(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity amount of buckets in the initial table, rounded up to a power of two
+     * @param loadFactor      maximal average amount of entries per bucket before the table grows
+     * @throws IllegalArgumentException if initialCapacity is negative or loadFactor is not positive
+     */
+
+    public CustomHashSet(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor(initialCapacity));
+    }
+
+    /**
+     * @param c collection for insert
+     * @throws NullPointerException if c == null
+     */
+
+    public CustomHashSet(Collection<? extends E> c) {
+        this(capacityFor(c.size(), DEFAULT_LOAD_FACTOR), DEFAULT_LOAD_FACTOR);
+        addAll(c);
+    }
+
+    /**
+     * @return new set of elements which are in a or in b, sized for both
+     */
+
+    public static <E> CustomHashSet<E> union(Collection<? extends E> a, Collection<? extends E> b) {
+        CustomHashSet<E> result = new CustomHashSet<>(capacityFor(a.size() + b.size(), DEFAULT_LOAD_FACTOR));
+        result.addAll(a);
+        result.addAll(b);
+        return result;
+    }
+
+    /**
+     * Looks up elements of the smaller set in the bigger one.
+     *
+     * @return new set of elements which are in a and in b, sized for the smaller set
+     */
+
+    public static <E> CustomHashSet<E> intersection(Set<? extends E> a, Set<? extends E> b) {
+        Set<? extends E> smaller = a.size() <= b.size() ? a : b;
+        Set<? extends E> bigger = smaller == a ? b : a;
+        CustomHashSet<E> result = new CustomHashSet<>(capacityFor(smaller.size(), DEFAULT_LOAD_FACTOR));
+        if (smaller instanceof CustomHashSet && bigger instanceof CustomHashSet) {
+            CustomHashSet<? extends E> from = (CustomHashSet<? extends E>) smaller;
+            CustomHashSet<? extends E> other = (CustomHashSet<? extends E>) bigger;
+            for (int i = 0; i < from.size; i++) {
+                if (other.indexOf(from.elements[i], from.hashes[i]) != NONE) {
+                    result.addNew(from.elements[i], from.hashes[i]);
+                }
+            }
+        } else {
+            for (E element : smaller) {
+                if (bigger.contains(element)) {
+                    result.add(element);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o, hash(o)) != NONE;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int hash = hash(e);
+        if (indexOf(e, hash) != NONE) {
+            return false;
+        }
+        addNew(e, hash);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int hash = hash(o);
+        int bucket = hash & (buckets.length - 1);
+        int previous = NONE;
+        for (int index = buckets[bucket]; index != NONE; index = next[index]) {
+            if (hashes[index] == hash && Objects.equals(elements[index], o)) {
+                unlink(bucket, previous, index);
+                return true;
+            }
+            previous = index;
+        }
+        return false;
+    }
+
+    /**
+     * A bigger CustomHashSet or HashSet can not be contained in this one, other sets may define their
+     * own equality and hold elements equal here. Elements of another CustomHashSet are looked up with
+     * their cached hashes.
+     *
+     * @throws NullPointerException if c == null
+     */
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if ((c instanceof CustomHashSet || c instanceof HashSet) && c.size() > size) {
+            return false;
+        }
+        if (c instanceof CustomHashSet) {
+            CustomHashSet<?> other = (CustomHashSet<?>) c;
+            for (int i = 0; i < other.size; i++) {
+                if (indexOf(other.elements[i], other.hashes[i]) == NONE) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (Object element : c) {
+            if (!contains(element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Grows the table once for all elements of c, elements of another CustomHashSet are
+     * inserted with their cached hashes.
+     *
+     * @param c collection for insert
+     * @throws NullPointerException if c == null
+     */
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        int oldSize = size;
+        ensureCapacity(size + c.size());
+        if (c instanceof CustomHashSet) {
+            CustomHashSet<? extends E> other = (CustomHashSet<? extends E>) c;
+            for (int i = 0; i < other.size; i++) {
+                if (indexOf(other.elements[i], other.hashes[i]) == NONE) {
+                    addNew(other.elements[i], other.hashes[i]);
+                }
+            }
+        } else {
+            for (E element : c) {
+                add(element);
+            }
+        }
+        return size != oldSize;
+    }
+
+    /**
+     * If c is a smaller CustomHashSet or HashSet, its elements are looked up here and the found ones
+     * are copied into a table sized for them, so at least one element is dropped. Other sets may
+     * define their own equality, so for them and for bigger sets elements which are not in c are
+     * removed in place.
+     *
+     * @throws NullPointerException if c == null
+     */
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if ((c instanceof CustomHashSet || c instanceof HashSet) && c.size() < size) {
+            CustomHashSet<E> retained = new CustomHashSet<>(capacityFor(c.size(), loadFactor), loadFactor);
+            if (c instanceof CustomHashSet) {
+                CustomHashSet<?> other = (CustomHashSet<?>) c;
+                for (int i = 0; i < other.size; i++) {
+                    int index = indexOf(other.elements[i], other.hashes[i]);
+                    if (index != NONE) {
+                        retained.addNew(elements[index], hashes[index]);
+                    }
+                }
+            } else {
+                for (Object element : c) {
+                    int index = indexOf(element, hash(element));
+                    if (index != NONE) {
+                        retained.addNew(elements[index], hashes[index]);
+                    }
+                }
+            }
+            buckets = retained.buckets;
+            hashes = retained.hashes;
+            next = retained.next;
+            elements = retained.elements;
+            size = retained.size;
+            modCount++;
+            return true;
+        }
+        boolean modified = false;
+        for (int index = size - 1; index >= 0; index--) {
+            if (!c.contains(elements[index])) {
+                removeAt(index);
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Iterates the smaller side: removes every element of c, or checks every element of this set
+     * if c is a bigger set.
+     *
+     * @throws NullPointerException if c == null
+     */
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c == this) {
+            boolean modified = size != 0;
+            clear();
+            return modified;
+        }
+        int oldSize = size;
+        if (c instanceof Set && c.size() > size) {
+            for (int index = size - 1; index >= 0; index--) {
+                if (c.contains(elements[index])) {
+                    removeAt(index);
+                }
+            }
+        } else if (c instanceof CustomHashSet) {
+            CustomHashSet<?> other = (CustomHashSet<?>) c;
+            for (int i = 0; i < other.size; i++) {
+                int index = indexOf(other.elements[i], other.hashes[i]);
+                if (index != NONE) {
+                    removeAt(index);
+                }
+            }
+        } else {
+            for (Object element : c) {
+                remove(element);
+            }
+        }
+        return size != oldSize;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(buckets, NONE);
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new SetIterator();
+    }
+
+    /**
+     * Mixes higher bits of the hash code into lower ones, which are used to choose a bucket.
+     */
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * @return amount of buckets which hold the given amount of elements without growing
+     */
+
+    private static int capacityFor(int elementCount, float loadFactor) {
+        return (int) Math.min(elementCount / loadFactor + 1, MAXIMUM_CAPACITY);
+    }
+
+    /**
+     * Allocates the table and entry arrays, which hold as many entries as the table may have before growing.
+     */
+
+    private void allocate(int capacity) {
+        int entryCapacity = capacity == MAXIMUM_CAPACITY
+                ? Integer.MAX_VALUE - 8 : (int) Math.max(1, Math.min(capacity * loadFactor, Integer.MAX_VALUE - 8));
+        buckets = new int[capacity];
+        Arrays.fill(buckets, NONE);
+        hashes = new int[entryCapacity];
+        next = new int[entryCapacity];
+        elements = new Object[entryCapacity];
+    }
+
+    private void ensureCapacity(int elementCount) {
+        if (elementCount > hashes.length) {
+            resize(tableSizeFor(capacityFor(elementCount, loadFactor)));
+        }
+    }
+
+    private int indexOf(Object element, int hash) {
+        for (int index = buckets[hash & (buckets.length - 1)]; index != NONE; index = next[index]) {
+            if (hashes[index] == hash) {
+                Object currentElement = elements[index];
+                if (currentElement == element || (element != null && element.equals(currentElement))) {
+                    return index;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Appends an element which is known to be absent.
+     */
+
+    private void addNew(Object element, int hash) {
+        while (size == hashes.length) {
+            resize(buckets.length * 2);
+        }
+        int bucket = hash & (buckets.length - 1);
+        hashes[size] = hash;
+        elements[size] = element;
+        next[size] = buckets[bucket];
+        buckets[bucket] = size;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Unlinks the entry from its chain and moves the last entry into its index.
+     */
+
+    private void unlink(int bucket, int previous, int index) {
+        if (previous == NONE) {
+            buckets[bucket] = next[index];
+        } else {
+            next[previous] = next[index];
+        }
+        int last = size - 1;
+        if (index != last) {
+            int lastBucket = hashes[last] & (buckets.length - 1);
+            if (buckets[lastBucket] == last) {
+                buckets[lastBucket] = index;
+            } else {
+                int current = buckets[lastBucket];
+                while (next[current] != last) {
+                    current = next[current];
+                }
+                next[current] = index;
+            }
+            hashes[index] = hashes[last];
+            next[index] = next[last];
+            elements[index] = elements[last];
+        }
+        elements[last] = null;
+        size--;
+        modCount++;
+    }
+
+    private void removeAt(int index) {
+        int bucket = hashes[index] & (buckets.length - 1);
+        int previous = NONE;
+        for (int current = buckets[bucket]; current != index; current = next[current]) {
+            previous = current;
+        }
+        unlink(bucket, previous, index);
+    }
+
+    /**
+     * Copies entries into bigger arrays and rebuilds chains from the kept hashes, equals is never called.
+     */
+
+    private void resize(int newCapacity) {
+        if (buckets.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Set is full");
+        }
+        int[] oldHashes = hashes;
+        Object[] oldElements = elements;
+        allocate(newCapacity);
+        System.arraycopy(oldHashes, 0, hashes, 0, size);
+        System.arraycopy(oldElements, 0, elements, 0, size);
+        int mask = newCapacity - 1;
+        for (int index = size - 1; index >= 0; index--) {
+            int bucket = hashes[index] & mask;
+            next[index] = buckets[bucket];
+            buckets[bucket] = index;
+        }
+    }
+
+    /**
+     * Walks entry indexes from 0 to size - 1. Removal moves the last entry, which is not visited yet,
+     * into the index of the removed one, so that index is visited once more.
+     */
+
+    private class SetIterator implements Iterator<E> {
+        private int nextIndex = 0;
+        private int lastReturned = NONE;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (nextIndex >= size) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = nextIndex++;
+            return (E) elements[lastReturned];
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == NONE) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(lastReturned);
+            nextIndex = lastReturned;
+            lastReturned = NONE;
+            expectedModCount = modCount;
+        }
+    }
+
+}
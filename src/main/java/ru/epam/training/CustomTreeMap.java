@@ -2,11 +2,27 @@ package ru.epam.training;
 
 import java.util.*;
 
-public class CustomTreeMap<K extends Comparable<K>, V> implements Map<K, V> {
+/**
+ * Implementation of a NavigableMap interface based on an AVL tree ordered by compareTo of keys.
+ * Heights of the subtrees of every node differ by at most one, insertions and removals
+ * restore it with rotations, so the height stays logarithmic for any insertion order.
+ * Nodes are linked to their parents, so iterators follow successors lazily, and range views
+ * find their first node in O(log n) and visit only k nodes in range.
+ * Null keys are not allowed.
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class CustomTreeMap<K extends Comparable<K>, V> implements NavigableMap<K, V> {
     private Node<K, V> root;
-    V oldValue;
     int size;
 
+    /**
+     * Amount of structural modifications, used by iterators to fail fast.
+     */
+    private int modCount = 0;
+
     @Override
     public int size() {
         return size;
@@ -20,7 +36,7 @@ public class CustomTreeMap<K extends Comparable<K>, V> implements Map<K, V> {
     @Override
     public boolean containsKey(Object key) {
         Objects.requireNonNull(key);
-        return find(root, (K) key) != null;
+        return find((K) key) != null;
     }
 
     @Override
@@ -43,112 +59,255 @@ public class CustomTreeMap<K extends Comparable<K>, V> implements Map<K, V> {
     @Override
     public V get(Object key) {
         Objects.requireNonNull(key);
-        return get(root, (K) key);
+        Node<K, V> node = find((K) key);
+        return node == null ? null : node.value;
     }
 
+    /**
+     * Goes down from the root and attaches a new node to the last visited one,
+     * then restores balance on the way back to the root.
+     */
+
     @Override
     public V put(K key, V value) {
         Objects.requireNonNull(key);
         Node<K, V> node = root;
         if (node == null) {
             key.compareTo(key);
-            root = new Node<>(key, value);
+            root = new Node<>(key, value, null);
             size++;
+            modCount++;
             return null;
         }
-        put(root, key, value);
-        return this.oldValue;
+        while (true) {
+            int compared = key.compareTo(node.key);
+            if (compared == 0) {
+                V oldValue = node.value;
+                node.value = value;
+                return oldValue;
+            }
+            Node<K, V> child = compared < 0 ? node.left : node.right;
+            if (child == null) {
+                Node<K, V> newNode = new Node<>(key, value, node);
+                if (compared < 0) {
+                    node.left = newNode;
+                } else {
+                    node.right = newNode;
+                }
+                size++;
+                modCount++;
+                rebalanceUp(node);
+                return null;
+            }
+            node = child;
+        }
     }
 
-    private Node<K, V> put(Node<K, V> node, K key, V value) {
-        if (oldValue != null) {
-            oldValue = null;
+    private Node<K, V> find(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int compared = key.compareTo(node.key);
+            if (compared == 0) {
+                return node;
+            }
+            node = compared < 0 ? node.left : node.right;
         }
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Objects.requireNonNull(key);
+        Node<K, V> node = find((K) key);
         if (node == null) {
-            size++;
-            return new Node<>(key, value);
+            return null;
         }
-        if (node.key.equals(key)) {
-            this.oldValue = node.value;
-            node.value = value;
-        } else if (node.key.compareTo(key) > 0) {
-            node.left = put(node.left, key, value);
+        removeNode(node);
+        return node.value;
+    }
+
+    /**
+     * Unlinks the node. A node with two children is replaced by its successor,
+     * which is unlinked from its own place first.
+     */
+
+    private void removeNode(Node<K, V> node) {
+        Node<K, V> rebalanceFrom;
+        if (node.left != null && node.right != null) {
+            Node<K, V> successor = getMinNode(node.right);
+            if (successor.parent == node) {
+                rebalanceFrom = successor;
+            } else {
+                rebalanceFrom = successor.parent;
+                rebalanceFrom.left = successor.right;
+                if (successor.right != null) {
+                    successor.right.parent = rebalanceFrom;
+                }
+                successor.right = node.right;
+                node.right.parent = successor;
+            }
+            successor.left = node.left;
+            node.left.parent = successor;
+            successor.height = node.height;
+            replaceChild(node.parent, node, successor);
         } else {
-            node.right = put(node.right, key, value);
+            rebalanceFrom = node.parent;
+            replaceChild(node.parent, node, node.left != null ? node.left : node.right);
         }
-        return node;
+        node.left = null;
+        node.right = null;
+        node.parent = null;
+        size--;
+        modCount++;
+        rebalanceUp(rebalanceFrom);
     }
 
-    private Node<K, V> find(Node<K, V> node, K key) {
-        if (node == null) {
-            return null;
+    private Node<K, V> getMinNode(Node<K, V> node) {
+        while (node.left != null) {
+            node = node.left;
         }
-        if (node.key.equals(key)) {
-            return node;
-        } else if (node.key.compareTo(key) > 0) {
-            return find(node.left, key);
+        return node;
+    }
+
+    /**
+     * Puts the child in place of the old child of the parent, or makes it the root if the parent is null.
+     */
+
+    private void replaceChild(Node<K, V> parent, Node<K, V> oldChild, Node<K, V> child) {
+        if (parent == null) {
+            root = child;
+        } else if (parent.left == oldChild) {
+            parent.left = child;
         } else {
-            return find(node.right, key);
+            parent.right = child;
+        }
+        if (child != null) {
+            child.parent = parent;
         }
     }
 
-    private V get(Node<K, V> node, K key) {
-        if (node == null) {
-            return null;
-        }
-        if (node.key.compareTo(key) > 0) {
-            return get(node.left, key);
-        } else if (node.key.compareTo(key) < 0) {
-            return get(node.right, key);
-        } else return node.value;
+    private int height(Node<K, V> node) {
+        return node == null ? 0 : node.height;
     }
 
-    @Override
-    public V remove(Object key) {
-        Objects.requireNonNull(key);
-        root = removeNode(root, (K) key);
-        return oldValue;
+    private void updateHeight(Node<K, V> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
     }
 
-    private Node<K, V> removeNode(Node<K, V> node, K key) {
-        if (node == null) {
-            oldValue = null;
-            return null;
+    /**
+     * Balances nodes from the given one up to the root. Stops at the first subtree whose height
+     * is not changed, nodes above it are not affected.
+     */
+
+    private void rebalanceUp(Node<K, V> node) {
+        while (node != null) {
+            Node<K, V> parent = node.parent;
+            int oldHeight = node.height;
+            if (balance(node).height == oldHeight) {
+                return;
+            }
+            node = parent;
         }
-        if (key.compareTo(node.key) > 0) {
-            node = removeNode(node.right, key);
-        } else if (key.compareTo(node.key) < 0) {
-            node = removeNode(node.left, key);
-        } else {
-            oldValue = node.value;
-            size--;
-            if (node.right == null) {
-                return node.left;
+    }
+
+    /**
+     * Restores the AVL invariant of the node whose subtrees differ in height by at most two.
+     *
+     * @return new root of the subtree
+     */
+
+    private Node<K, V> balance(Node<K, V> node) {
+        updateHeight(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                rotateLeft(node.left);
             }
-            if (node.left == null) {
-                return node.right;
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                rotateRight(node.right);
             }
-            Node<K, V> temp = node;
-            node = getMinNode(node.right);
-            node.right = deleteMinNode(temp.right);
-            node.left = temp.left;
+            return rotateLeft(node);
         }
         return node;
     }
 
-    private Node<K, V> deleteMinNode(Node<K, V> node) {
-        if (node.left == null) {
-            return node.right;
+    private Node<K, V> rotateLeft(Node<K, V> node) {
+        Node<K, V> right = node.right;
+        node.right = right.left;
+        if (right.left != null) {
+            right.left.parent = node;
         }
-        node.left = deleteMinNode(node.left);
-        return node;
+        replaceChild(node.parent, node, right);
+        right.left = node;
+        node.parent = right;
+        updateHeight(node);
+        updateHeight(right);
+        return right;
     }
 
-    private Node<K, V> getMinNode(Node<K, V> node) {
-        if (node.left == null) {
-            return node;
+    private Node<K, V> rotateRight(Node<K, V> node) {
+        Node<K, V> left = node.left;
+        node.left = left.right;
+        if (left.right != null) {
+            left.right.parent = node;
         }
-        return getMinNode(node.left);
+        replaceChild(node.parent, node, left);
+        left.right = node;
+        node.parent = left;
+        updateHeight(node);
+        updateHeight(left);
+        return left;
+    }
+
+    /**
+     * @return height of the tree, 0 for an empty one
+     */
+
+    int height() {
+        return height(root);
+    }
+
+    /**
+     * Checks order of keys, parent links, stored heights, balance of every node and size, for tests.
+     *
+     * @throws IllegalStateException if the tree is broken
+     */
+
+    void checkInvariants() {
+        if (root != null && root.parent != null) {
+            throw new IllegalStateException("Root has a parent");
+        }
+        if (checkInvariants(root, null, null) != size) {
+            throw new IllegalStateException("Size " + size + " differs from amount of nodes");
+        }
+    }
+
+    /**
+     * @return amount of nodes in the subtree
+     */
+
+    private int checkInvariants(Node<K, V> node, K lowerBound, K upperBound) {
+        if (node == null) {
+            return 0;
+        }
+        if ((lowerBound != null && node.key.compareTo(lowerBound) <= 0)
+                || (upperBound != null && node.key.compareTo(upperBound) >= 0)) {
+            throw new IllegalStateException("Key " + node.key + " is out of order");
+        }
+        if ((node.left != null && node.left.parent != node) || (node.right != null && node.right.parent != node)) {
+            throw new IllegalStateException("Wrong parent of a child of key " + node.key);
+        }
+        int count = checkInvariants(node.left, lowerBound, node.key) + checkInvariants(node.right, node.key, upperBound) + 1;
+        if (node.height != Math.max(height(node.left), height(node.right)) + 1) {
+            throw new IllegalStateException("Wrong height of key " + node.key);
+        }
+        if (Math.abs(height(node.left) - height(node.right)) > 1) {
+            throw new IllegalStateException("Key " + node.key + " is not balanced");
+        }
+        return count;
     }
 
     @Override
@@ -162,11 +321,12 @@ public class CustomTreeMap<K extends Comparable<K>, V> implements Map<K, V> {
     public void clear() {
         root = null;
         size = 0;
+        modCount++;
     }
 
     @Override
     public Set<K> keySet() {
-        return new KeySet();
+        return navigableKeySet();
     }
 
     @Override
@@ -179,15 +339,282 @@ public class CustomTreeMap<K extends Comparable<K>, V> implements Map<K, V> {
         return new EntrySet();
     }
 
+    @Override
+    public Comparator<? super K> comparator() {
+        return null;
+    }
+
+    /**
+     * @throws NoSuchElementException if the map is empty
+     */
+
+    @Override
+    public K firstKey() {
+        return key(lowestNode());
+    }
+
+    /**
+     * @throws NoSuchElementException if the map is empty
+     */
+
+    @Override
+    public K lastKey() {
+        return key(highestNode());
+    }
+
+    @Override
+    public Entry<K, V> firstEntry() {
+        return exportEntry(lowestNode());
+    }
+
+    @Override
+    public Entry<K, V> lastEntry() {
+        return exportEntry(highestNode());
+    }
+
+    @Override
+    public Entry<K, V> pollFirstEntry() {
+        return pollNode(lowestNode());
+    }
+
+    @Override
+    public Entry<K, V> pollLastEntry() {
+        return pollNode(highestNode());
+    }
+
+    @Override
+    public Entry<K, V> lowerEntry(K key) {
+        return exportEntry(lowerNode(key));
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOrNull(lowerNode(key));
+    }
+
+    @Override
+    public Entry<K, V> floorEntry(K key) {
+        return exportEntry(floorNode(key));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOrNull(floorNode(key));
+    }
+
+    @Override
+    public Entry<K, V> ceilingEntry(K key) {
+        return exportEntry(ceilingNode(key));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOrNull(ceilingNode(key));
+    }
+
+    @Override
+    public Entry<K, V> higherEntry(K key) {
+        return exportEntry(higherNode(key));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOrNull(higherNode(key));
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return new SubMap(true, null, true, true, null, true, true);
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return new KeySet<>(this);
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    /**
+     * @return live view of keys from fromKey to toKey, which visits only nodes in the range
+     * @throws IllegalArgumentException if fromKey is greater than toKey
+     * @throws NullPointerException     if fromKey or toKey is null
+     */
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        Objects.requireNonNull(fromKey);
+        Objects.requireNonNull(toKey);
+        if (fromKey.compareTo(toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return new SubMap(false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+    }
+
+    /**
+     * @return live view of keys less than toKey, or equal to it if inclusive
+     * @throws NullPointerException if toKey is null
+     */
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        Objects.requireNonNull(toKey);
+        return new SubMap(true, null, true, false, toKey, inclusive, false);
+    }
+
+    /**
+     * @return live view of keys greater than fromKey, or equal to it if inclusive
+     * @throws NullPointerException if fromKey is null
+     */
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        Objects.requireNonNull(fromKey);
+        return new SubMap(false, fromKey, inclusive, true, null, true, false);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    private static <K> K key(Entry<K, ?> node) {
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        return node.getKey();
+    }
+
+    private static <K> K keyOrNull(Entry<K, ?> node) {
+        return node == null ? null : node.getKey();
+    }
+
+    /**
+     * @return immutable copy of the node, so the entry does not change with the map
+     */
+
+    private static <K, V> Entry<K, V> exportEntry(Entry<K, V> node) {
+        return node == null ? null : new AbstractMap.SimpleImmutableEntry<>(node.getKey(), node.getValue());
+    }
+
+    private Entry<K, V> pollNode(Node<K, V> node) {
+        if (node == null) {
+            return null;
+        }
+        Entry<K, V> entry = exportEntry(node);
+        removeNode(node);
+        return entry;
+    }
+
+    private Node<K, V> lowestNode() {
+        return root == null ? null : getMinNode(root);
+    }
+
+    private Node<K, V> highestNode() {
+        Node<K, V> node = root;
+        if (node != null) {
+            while (node.right != null) {
+                node = node.right;
+            }
+        }
+        return node;
+    }
+
+    private Node<K, V> ceilingNode(K key) {
+        return nearestNode(key, true, true);
+    }
+
+    private Node<K, V> higherNode(K key) {
+        return nearestNode(key, true, false);
+    }
+
+    private Node<K, V> floorNode(K key) {
+        return nearestNode(key, false, true);
+    }
+
+    private Node<K, V> lowerNode(K key) {
+        return nearestNode(key, false, false);
+    }
+
+    /**
+     * Goes down from the root with one compareTo per level and remembers the last node
+     * on the wanted side of the key.
+     *
+     * @param above     if the nearest node above the key is wanted, otherwise below it
+     * @param inclusive if the node with the key itself is wanted
+     */
+
+    private Node<K, V> nearestNode(K key, boolean above, boolean inclusive) {
+        Objects.requireNonNull(key);
+        Node<K, V> node = root;
+        Node<K, V> nearest = null;
+        while (node != null) {
+            int compared = key.compareTo(node.key);
+            if (compared == 0 && inclusive) {
+                return node;
+            }
+            if (above ? compared < 0 : compared > 0) {
+                nearest = node;
+                node = above ? node.left : node.right;
+            } else {
+                node = above ? node.right : node.left;
+            }
+        }
+        return nearest;
+    }
+
+    private Node<K, V> successor(Node<K, V> node) {
+        if (node.right != null) {
+            return getMinNode(node.right);
+        }
+        Node<K, V> parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    private Node<K, V> predecessor(Node<K, V> node) {
+        if (node.left != null) {
+            node = node.left;
+            while (node.right != null) {
+                node = node.right;
+            }
+            return node;
+        }
+        Node<K, V> parent = node.parent;
+        while (parent != null && node == parent.left) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
     private class Node<K extends Comparable<K>, V> implements Entry<K, V> {
         private final K key;
         private V value;
         private Node<K, V> left;
         private Node<K, V> right;
+        private Node<K, V> parent;
+        private int height = 1;
 
-        public Node(K key, V value) {
+        public Node(K key, V value, Node<K, V> parent) {
             this.key = key;
             this.value = value;
+            this.parent = parent;
         }
 
 
@@ -209,25 +636,151 @@ public class CustomTreeMap<K extends Comparable<K>, V> implements Map<K, V> {
         }
     }
 
-    private class KeySet extends AbstractSet<K> {
+    /**
+     * Navigable set of keys of a map or of its view, all operations are done by the map.
+     */
+
+    private static class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+
+        private final NavigableMap<E, ?> map;
+
+        KeySet(NavigableMap<E, ?> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            Iterator<? extends Entry<E, ?>> iterator = map.entrySet().iterator();
+            return new Iterator<E>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public E next() {
+                    return iterator.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                }
+            };
+        }
+
         @Override
-        public Iterator<K> iterator() {
-            return new KeyIterator();
+        public Iterator<E> descendingIterator() {
+            return descendingSet().iterator();
         }
 
         @Override
         public int size() {
-            return CustomTreeMap.this.size();
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
         }
 
         @Override
         public boolean contains(Object o) {
-            return CustomTreeMap.this.containsKey(o);
+            return map.containsKey(o);
         }
 
         @Override
         public boolean remove(Object o) {
-            return CustomTreeMap.this.remove(o) != null;
+            if (map.containsKey(o)) {
+                map.remove(o);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return map.comparator();
+        }
+
+        @Override
+        public E first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public E last() {
+            return map.lastKey();
+        }
+
+        @Override
+        public E lower(E e) {
+            return map.lowerKey(e);
+        }
+
+        @Override
+        public E floor(E e) {
+            return map.floorKey(e);
+        }
+
+        @Override
+        public E ceiling(E e) {
+            return map.ceilingKey(e);
+        }
+
+        @Override
+        public E higher(E e) {
+            return map.higherKey(e);
+        }
+
+        @Override
+        public E pollFirst() {
+            return keyOrNull(map.pollFirstEntry());
+        }
+
+        @Override
+        public E pollLast() {
+            return keyOrNull(map.pollLastEntry());
+        }
+
+        @Override
+        public NavigableSet<E> descendingSet() {
+            return new KeySet<>(map.descendingMap());
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+            return new KeySet<>(map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            return new KeySet<>(map.headMap(toElement, inclusive));
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            return new KeySet<>(map.tailMap(fromElement, inclusive));
+        }
+
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
         }
     }
 
@@ -235,7 +788,7 @@ public class CustomTreeMap<K extends Comparable<K>, V> implements Map<K, V> {
 
         @Override
         public Iterator<V> iterator() {
-            return new ValueIterator();
+            return new ValueIterator(lowestNode(), null, false);
         }
 
         @Override
@@ -252,7 +805,7 @@ public class CustomTreeMap<K extends Comparable<K>, V> implements Map<K, V> {
     private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
         @Override
         public Iterator<Map.Entry<K, V>> iterator() {
-            return new NodeIterator();
+            return new NodeIterator(lowestNode(), null, false);
         }
 
         @Override
@@ -277,67 +830,440 @@ public class CustomTreeMap<K extends Comparable<K>, V> implements Map<K, V> {
         }
     }
 
-    private abstract class TreeMapIterator implements Iterator {
-        private Node<K, V>[] nodeArray = new Node[size];
-        private int addIndex = 0;
-        private int currentIndex = 0;
+    /**
+     * Live view of a range of keys, optionally in descending order. Bounds are kept in the
+     * ascending order of the tree: lo is the lower one and hi is the higher one, whatever the
+     * direction of the view. Navigation goes down the tree from the root and iteration follows
+     * successor links, so only nodes in the range are visited.
+     */
+
+    private class SubMap extends AbstractMap<K, V> implements NavigableMap<K, V> {
 
+        private final boolean fromStart;
+        private final K lo;
+        private final boolean loInclusive;
+        private final boolean toEnd;
+        private final K hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
 
-        TreeMapIterator() {
-            makeIterator(root);
+        SubMap(boolean fromStart, K lo, boolean loInclusive, boolean toEnd, K hi, boolean hiInclusive, boolean descending) {
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
         }
 
-        private void makeIterator(Node<K, V> node) {
-            if (node == null) {
-                return;
+        private boolean tooLow(K key) {
+            if (fromStart) {
+                return false;
+            }
+            int compared = key.compareTo(lo);
+            return compared < 0 || (compared == 0 && !loInclusive);
+        }
+
+        private boolean tooHigh(K key) {
+            if (toEnd) {
+                return false;
+            }
+            int compared = key.compareTo(hi);
+            return compared > 0 || (compared == 0 && !hiInclusive);
+        }
+
+        private boolean inRange(Object key) {
+            Objects.requireNonNull(key);
+            return !tooLow((K) key) && !tooHigh((K) key);
+        }
+
+        /**
+         * @return if the key can be a bound of a nested view, an exclusive bound may be equal to a bound of this range
+         */
+
+        private boolean inRange(K key, boolean inclusive) {
+            if (inclusive) {
+                return inRange(key);
             }
+            return (fromStart || key.compareTo(lo) >= 0) && (toEnd || key.compareTo(hi) <= 0);
+        }
+
+        private Node<K, V> inRangeOrNull(Node<K, V> node) {
+            return node == null || tooLow(node.key) || tooHigh(node.key) ? null : node;
+        }
+
+        private Node<K, V> absLowest() {
+            return inRangeOrNull(fromStart ? lowestNode() : (loInclusive ? ceilingNode(lo) : higherNode(lo)));
+        }
+
+        private Node<K, V> absHighest() {
+            return inRangeOrNull(toEnd ? highestNode() : (hiInclusive ? floorNode(hi) : lowerNode(hi)));
+        }
+
+        private Node<K, V> absCeiling(K key) {
+            return tooLow(key) ? absLowest() : inRangeOrNull(ceilingNode(key));
+        }
+
+        private Node<K, V> absHigher(K key) {
+            return tooLow(key) ? absLowest() : inRangeOrNull(higherNode(key));
+        }
 
-            makeIterator(node.left);
-            nodeArray[addIndex++] = node;
-            makeIterator(node.right);
+        private Node<K, V> absFloor(K key) {
+            return tooHigh(key) ? absHighest() : inRangeOrNull(floorNode(key));
+        }
+
+        private Node<K, V> absLower(K key) {
+            return tooHigh(key) ? absHighest() : inRangeOrNull(lowerNode(key));
+        }
+
+        private Node<K, V> lowestInView() {
+            return descending ? absHighest() : absLowest();
+        }
+
+        private Node<K, V> highestInView() {
+            return descending ? absLowest() : absHighest();
+        }
+
+        /**
+         * @return first node after the range in the direction of the view, where iteration stops
+         */
+
+        private Node<K, V> fence() {
+            if (descending) {
+                return fromStart ? null : (loInclusive ? lowerNode(lo) : floorNode(lo));
+            }
+            return toEnd ? null : (hiInclusive ? higherNode(hi) : ceilingNode(hi));
         }
 
         @Override
-        public boolean hasNext() {
+        public int size() {
+            int count = 0;
+            for (Iterator<Entry<K, V>> iterator = entrySet().iterator(); iterator.hasNext(); iterator.next()) {
+                count++;
+            }
+            return count;
+        }
 
-            return currentIndex < nodeArray.length;
+        @Override
+        public boolean isEmpty() {
+            return absLowest() == null;
         }
 
         @Override
-        public Object next() {
+        public boolean containsKey(Object key) {
+            return inRange(key) && CustomTreeMap.this.containsKey(key);
+        }
 
-            if (!hasNext()) {
-                throw new NoSuchElementException();
+        @Override
+        public V get(Object key) {
+            return inRange(key) ? CustomTreeMap.this.get(key) : null;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the key is out of the range
+         */
+
+        @Override
+        public V put(K key, V value) {
+            if (!inRange(key)) {
+                throw new IllegalArgumentException("Key out of range");
             }
+            return CustomTreeMap.this.put(key, value);
+        }
 
-            return nodeArray[currentIndex++];
+        @Override
+        public V remove(Object key) {
+            return inRange(key) ? CustomTreeMap.this.remove(key) : null;
         }
 
-    }
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<Entry<K, V>>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new NodeIterator(lowestInView(), fence(), descending);
+                }
+
+                @Override
+                public int size() {
+                    return SubMap.this.size();
+                }
+
+                @Override
+                public boolean isEmpty() {
+                    return SubMap.this.isEmpty();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Map.Entry)) {
+                        return false;
+                    }
+                    Object key = ((Map.Entry<?, ?>) o).getKey();
+                    return key != null && inRange(key) && CustomTreeMap.this.containsKey(key)
+                            && Objects.equals(CustomTreeMap.this.get(key), ((Map.Entry<?, ?>) o).getValue());
+                }
+
+                @Override
+                public boolean remove(Object o) {
+                    if (contains(o)) {
+                        CustomTreeMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
 
-    private class NodeIterator extends TreeMapIterator {
         @Override
-        public Node<K, V> next() {
-            return (Node<K, V>) super.next();
+        public Set<K> keySet() {
+            return navigableKeySet();
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return descending ? Collections.reverseOrder() : null;
+        }
+
+        @Override
+        public K firstKey() {
+            return key(lowestInView());
         }
 
+        @Override
+        public K lastKey() {
+            return key(highestInView());
+        }
+
+        @Override
+        public Entry<K, V> firstEntry() {
+            return exportEntry(lowestInView());
+        }
+
+        @Override
+        public Entry<K, V> lastEntry() {
+            return exportEntry(highestInView());
+        }
+
+        @Override
+        public Entry<K, V> pollFirstEntry() {
+            return pollNode(lowestInView());
+        }
+
+        @Override
+        public Entry<K, V> pollLastEntry() {
+            return pollNode(highestInView());
+        }
+
+        @Override
+        public Entry<K, V> lowerEntry(K key) {
+            return exportEntry(lowerInView(key));
+        }
+
+        @Override
+        public K lowerKey(K key) {
+            return keyOrNull(lowerInView(key));
+        }
+
+        @Override
+        public Entry<K, V> floorEntry(K key) {
+            return exportEntry(floorInView(key));
+        }
+
+        @Override
+        public K floorKey(K key) {
+            return keyOrNull(floorInView(key));
+        }
+
+        @Override
+        public Entry<K, V> ceilingEntry(K key) {
+            return exportEntry(ceilingInView(key));
+        }
+
+        @Override
+        public K ceilingKey(K key) {
+            return keyOrNull(ceilingInView(key));
+        }
+
+        @Override
+        public Entry<K, V> higherEntry(K key) {
+            return exportEntry(higherInView(key));
+        }
+
+        @Override
+        public K higherKey(K key) {
+            return keyOrNull(higherInView(key));
+        }
+
+        private Node<K, V> lowerInView(K key) {
+            return descending ? absHigher(key) : absLower(key);
+        }
+
+        private Node<K, V> floorInView(K key) {
+            return descending ? absCeiling(key) : absFloor(key);
+        }
+
+        private Node<K, V> ceilingInView(K key) {
+            return descending ? absFloor(key) : absCeiling(key);
+        }
+
+        private Node<K, V> higherInView(K key) {
+            return descending ? absLower(key) : absHigher(key);
+        }
+
+        @Override
+        public NavigableMap<K, V> descendingMap() {
+            return new SubMap(fromStart, lo, loInclusive, toEnd, hi, hiInclusive, !descending);
+        }
+
+        @Override
+        public NavigableSet<K> navigableKeySet() {
+            return new KeySet<>(this);
+        }
+
+        @Override
+        public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+
+        /**
+         * @throws IllegalArgumentException if fromKey is after toKey in the order of the view or a key is out of the range
+         */
+
+        @Override
+        public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+            Objects.requireNonNull(fromKey);
+            Objects.requireNonNull(toKey);
+            if (descending ? fromKey.compareTo(toKey) < 0 : fromKey.compareTo(toKey) > 0) {
+                throw new IllegalArgumentException("fromKey > toKey");
+            }
+            return descending
+                    ? absSubMap(false, toKey, toInclusive, false, fromKey, fromInclusive)
+                    : absSubMap(false, fromKey, fromInclusive, false, toKey, toInclusive);
+        }
+
+        /**
+         * @throws IllegalArgumentException if toKey is out of the range
+         */
+
+        @Override
+        public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+            Objects.requireNonNull(toKey);
+            return descending
+                    ? absSubMap(false, toKey, inclusive, toEnd, hi, hiInclusive)
+                    : absSubMap(fromStart, lo, loInclusive, false, toKey, inclusive);
+        }
+
+        /**
+         * @throws IllegalArgumentException if fromKey is out of the range
+         */
+
+        @Override
+        public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+            Objects.requireNonNull(fromKey);
+            return descending
+                    ? absSubMap(fromStart, lo, loInclusive, false, fromKey, inclusive)
+                    : absSubMap(false, fromKey, inclusive, toEnd, hi, hiInclusive);
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            return headMap(toKey, false);
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            return tailMap(fromKey, true);
+        }
+
+        /**
+         * Makes a view of the same direction with bounds in the ascending order, which must be inside of this range.
+         */
+
+        private SubMap absSubMap(boolean newFromStart, K newLo, boolean newLoInclusive,
+                                 boolean newToEnd, K newHi, boolean newHiInclusive) {
+            if ((!newFromStart && !inRange(newLo, newLoInclusive)) || (!newToEnd && !inRange(newHi, newHiInclusive))) {
+                throw new IllegalArgumentException("Key out of range");
+            }
+            return new SubMap(newFromStart, newLo, newLoInclusive, newToEnd, newHi, newHiInclusive, descending);
+        }
     }
 
-    private class KeyIterator extends TreeMapIterator {
+    /**
+     * Follows successor or predecessor links from the first node until the fence node, so only
+     * nodes in the range are visited. Removal relinks nodes instead of moving entries between them,
+     * so the next node stays valid after removal through the iterator.
+     */
+
+    private abstract class TreeMapIterator<E> implements Iterator<E> {
+        private Node<K, V> nextNode;
+        private final Node<K, V> fence;
+        private final boolean descending;
+        private Node<K, V> lastReturned;
+        private int expectedModCount = modCount;
+
+        TreeMapIterator(Node<K, V> first, Node<K, V> fence, boolean descending) {
+            this.nextNode = first;
+            this.fence = fence;
+            this.descending = descending;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != null && nextNode != fence;
+        }
+
+        Node<K, V> nextNode() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = nextNode;
+            nextNode = descending ? predecessor(nextNode) : successor(nextNode);
+            return lastReturned;
+        }
+
         @Override
-        public K next() {
-            Node<K, V> node = (Node<K, V>) super.next();
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeNode(lastReturned);
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+    }
 
-            return node.key;
+    private class NodeIterator extends TreeMapIterator<Map.Entry<K, V>> {
+        NodeIterator(Node<K, V> first, Node<K, V> fence, boolean descending) {
+            super(first, fence, descending);
+        }
+
+        @Override
+        public Node<K, V> next() {
+            return nextNode();
         }
     }
 
-    private class ValueIterator extends TreeMapIterator {
+    private class ValueIterator extends TreeMapIterator<V> {
+        ValueIterator(Node<K, V> first, Node<K, V> fence, boolean descending) {
+            super(first, fence, descending);
+        }
+
         @Override
         public V next() {
-            Node<K, V> node = (Node<K, V>) super.next();
-
-            return node.value;
+            return nextNode().value;
         }
     }
 
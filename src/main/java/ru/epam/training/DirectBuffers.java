@@ -0,0 +1,47 @@
+package ru.epam.training;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases memory of direct and mapped buffers without waiting for the garbage collector.
+ * Uses Unsafe.invokeCleaner on Java 9 and later and the buffer cleaner on Java 8.
+ * If neither is accessible, the buffer is left to the garbage collector.
+ */
+
+final class DirectBuffers {
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * The buffer and all of its views must not be used after this call.
+     */
+
+    static void free(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return;
+        }
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // no invokeCleaner before Java 9
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // the garbage collector frees the buffer
+        }
+    }
+}
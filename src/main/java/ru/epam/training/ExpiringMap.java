@@ -0,0 +1,528 @@
+package ru.epam.training;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Implementation of a Map interface whose entries expire after their time to live.
+ * Entries are kept in a CustomHashMap and scheduled in a hierarchical timer wheel:
+ * levels of buckets with spans of about a second, a minute, an hour, a day and a week.
+ * Every operation reads the clock and advances the wheel, which expires the entries
+ * of passed buckets and moves entries of coarse buckets to finer ones, so no background
+ * thread and no per-entry timers are needed. An expired entry is never returned, even if
+ * its bucket is not passed yet.
+ * The clock returns nanoseconds like System.nanoTime and may be replaced for testing.
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class ExpiringMap<K, V> implements Map<K, V> {
+
+    /**
+     * Spans of buckets of every level in nanoseconds, the last level has a single bucket.
+     */
+    private static final long[] SPANS = {
+            1L << 30, // 1.07 seconds
+            1L << 36, // 1.14 minutes
+            1L << 42, // 1.22 hours
+            1L << 47, // 1.63 days
+            1L << 49, // 6.5 days
+    };
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    /**
+     * Longer times to live are cut to about 146 years, so expiration times never overflow.
+     */
+    private static final long MAXIMUM_TIME_TO_LIVE = Long.MAX_VALUE >>> 1;
+
+    private final CustomHashMap<K, TimerEntry<K, V>> map = new CustomHashMap<>();
+
+    private final TimerEntry<K, V>[][] wheel;
+
+    private final long defaultTimeToLive;
+
+    private final LongSupplier clock;
+
+    /**
+     * Clock value at creation, times of the wheel are counted from it and are never negative.
+     */
+    private final long origin;
+
+    /**
+     * Time to which the wheel is advanced.
+     */
+    private long nanos = 0;
+
+    /**
+     * Entries removed by iterators which stay in the underlying map until the wheel passes their bucket.
+     */
+    private int removedEntries = 0;
+
+    public ExpiringMap(long timeToLive, TimeUnit unit) {
+        this(timeToLive, unit, System::nanoTime);
+    }
+
+    /**
+     * @param timeToLive time to live of entries put without their own one
+     * @param unit       unit of timeToLive
+     * @param clock      source of current time in nanoseconds
+     * @throws IllegalArgumentException if timeToLive is not positive
+     */
+
+    public ExpiringMap(long timeToLive, TimeUnit unit, LongSupplier clock) {
+        this.defaultTimeToLive = toNanos(timeToLive, unit);
+        this.clock = Objects.requireNonNull(clock);
+        this.origin = clock.getAsLong();
+        this.wheel = new TimerEntry[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new TimerEntry[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                wheel[i][j] = new TimerEntry<>(null, null, 0);
+            }
+        }
+    }
+
+    /**
+     * Entries which expired less than a second ago may be counted.
+     */
+
+    @Override
+    public int size() {
+        expireEntries();
+        return map.size() - removedEntries;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getEntry(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        expireEntries();
+        for (TimerEntry<K, V> entry : map.values()) {
+            if (!isExpired(entry) && Objects.equals(entry.value, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        TimerEntry<K, V> entry = getEntry(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Puts the entry with the default time to live.
+     */
+
+    @Override
+    public V put(K key, V value) {
+        return put(key, value, defaultTimeToLive, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Puts the entry, which expires after the given time. The time to live of an existing entry is replaced.
+     *
+     * @return previous value or null if there was no such key or its entry expired
+     * @throws IllegalArgumentException if timeToLive is not positive
+     */
+
+    public V put(K key, V value, long timeToLive, TimeUnit unit) {
+        long time = expireEntries() + Math.min(toNanos(timeToLive, unit), MAXIMUM_TIME_TO_LIVE);
+        TimerEntry<K, V> entry = map.get(key);
+        if (entry == null) {
+            entry = new TimerEntry<>(key, value, time);
+            map.put(key, entry);
+            schedule(entry);
+            return null;
+        }
+        V oldValue = isExpired(entry) ? null : entry.value;
+        if (entry.removed) {
+            entry.removed = false;
+            removedEntries--;
+        }
+        entry.value = value;
+        entry.time = time;
+        unlink(entry);
+        schedule(entry);
+        return oldValue;
+    }
+
+    @Override
+    public V remove(Object key) {
+        expireEntries();
+        TimerEntry<K, V> entry = map.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        forget(entry);
+        unlink(entry);
+        return isExpired(entry) ? null : entry.value;
+    }
+
+    /**
+     * @param m map for insert
+     * @throws NullPointerException if m == null
+     */
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> insertionEntry : m.entrySet()) {
+            this.put(insertionEntry.getKey(), insertionEntry.getValue());
+        }
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        removedEntries = 0;
+        for (TimerEntry<K, V>[] buckets : wheel) {
+            for (TimerEntry<K, V> sentinel : buckets) {
+                sentinel.previous = sentinel;
+                sentinel.next = sentinel;
+            }
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new ValueCollection();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    private static long toNanos(long timeToLive, TimeUnit unit) {
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("Illegal time to live: " + timeToLive);
+        }
+        return unit.toNanos(timeToLive);
+    }
+
+    private boolean isExpired(TimerEntry<K, V> entry) {
+        return entry.time <= nanos;
+    }
+
+    /**
+     * @return entry for the key or null if there is no such key, an expired entry is removed
+     */
+
+    private TimerEntry<K, V> getEntry(Object key) {
+        expireEntries();
+        TimerEntry<K, V> entry = map.get(key);
+        if (entry != null && isExpired(entry)) {
+            map.remove(key);
+            forget(entry);
+            unlink(entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Advances the wheel to the current time. On every level the buckets passed since
+     * the previous advance are emptied, coarser levels are visited only when finer ones wrap around.
+     *
+     * @return current time
+     */
+
+    private long expireEntries() {
+        long currentTime = clock.getAsLong() - origin;
+        long previousTime = nanos;
+        if (currentTime <= previousTime) {
+            return previousTime;
+        }
+        nanos = currentTime;
+        for (int i = 0; i < wheel.length; i++) {
+            int shift = Long.numberOfTrailingZeros(SPANS[i]);
+            long previousTicks = previousTime >>> shift;
+            long currentTicks = currentTime >>> shift;
+            if (currentTicks == previousTicks) {
+                break;
+            }
+            expireBuckets(i, previousTicks, currentTicks - previousTicks);
+        }
+        return currentTime;
+    }
+
+    private void expireBuckets(int level, long previousTicks, long delta) {
+        TimerEntry<K, V>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(delta + 1, buckets.length);
+        int start = (int) (previousTicks & mask);
+        for (int i = start; i < start + steps; i++) {
+            TimerEntry<K, V> sentinel = buckets[i & mask];
+            TimerEntry<K, V> entry = sentinel.next;
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+            while (entry != sentinel) {
+                TimerEntry<K, V> next = entry.next;
+                entry.previous = null;
+                entry.next = null;
+                if (isExpired(entry)) {
+                    map.remove(entry.key);
+                    forget(entry);
+                } else {
+                    schedule(entry);
+                }
+                entry = next;
+            }
+        }
+    }
+
+    /**
+     * Adds the entry to the finest bucket whose level covers the time left to its expiration.
+     */
+
+    private void schedule(TimerEntry<K, V> entry) {
+        TimerEntry<K, V> sentinel = wheel[wheel.length - 1][0];
+        long duration = entry.time - nanos;
+        for (int i = 0; i < wheel.length - 1; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = entry.time >>> Long.numberOfTrailingZeros(SPANS[i]);
+                sentinel = wheel[i][(int) (ticks & (wheel[i].length - 1))];
+                break;
+            }
+        }
+        entry.previous = sentinel.previous;
+        entry.next = sentinel;
+        sentinel.previous.next = entry;
+        sentinel.previous = entry;
+    }
+
+    /**
+     * Updates the count of removed entries after the entry is removed from the underlying map.
+     */
+
+    private void forget(TimerEntry<K, V> entry) {
+        if (entry.removed) {
+            entry.removed = false;
+            removedEntries--;
+        }
+    }
+
+    private void unlink(TimerEntry<K, V> entry) {
+        if (entry.next != null) {
+            entry.previous.next = entry.next;
+            entry.next.previous = entry.previous;
+            entry.previous = null;
+            entry.next = null;
+        }
+    }
+
+    /**
+     * Mapping with its expiration time and links of its wheel bucket.
+     * A bucket is a circular list around a sentinel entry.
+     */
+
+    private static final class TimerEntry<K, V> implements Map.Entry<K, V> {
+
+        private final K key;
+        private V value;
+        private long time;
+        private boolean removed;
+        private TimerEntry<K, V> previous = this;
+        private TimerEntry<K, V> next = this;
+
+        TimerEntry(K key, V value, long time) {
+            this.key = key;
+            this.value = value;
+            this.time = time;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return ExpiringMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return ExpiringMap.this.containsKey(o);
+        }
+    }
+
+    private class ValueCollection extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return ExpiringMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return ExpiringMap.this.containsValue(o);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return ExpiringMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                TimerEntry<K, V> currentEntry = getEntry(entry.getKey());
+                return currentEntry != null && Objects.equals(currentEntry.value, entry.getValue());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Walks entries of the underlying map and skips expired ones.
+     * The wheel is advanced once, when the iterator is created, other operations on the map
+     * may expire entries and make the iterator throw ConcurrentModificationException.
+     */
+
+    private abstract class ExpiringIterator<E> implements Iterator<E> {
+        private final Iterator<TimerEntry<K, V>> iterator;
+        private TimerEntry<K, V> nextEntry;
+        private TimerEntry<K, V> currentEntry;
+
+        /**
+         * True if the underlying iterator has moved past the last returned entry.
+         */
+        private boolean lookedAhead = false;
+
+        ExpiringIterator() {
+            expireEntries();
+            iterator = map.values().iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextEntry == null && iterator.hasNext()) {
+                lookedAhead = true;
+                TimerEntry<K, V> entry = iterator.next();
+                if (!isExpired(entry)) {
+                    nextEntry = entry;
+                }
+            }
+            return nextEntry != null;
+        }
+
+        TimerEntry<K, V> nextEntry() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            currentEntry = nextEntry;
+            nextEntry = null;
+            lookedAhead = false;
+            return currentEntry;
+        }
+
+        /**
+         * If hasNext was called after next, the last returned entry can not be removed
+         * by the underlying iterator, so it is expired instead, removed from the size
+         * at once and from the underlying map on the next tick.
+         */
+
+        @Override
+        public void remove() {
+            if (currentEntry == null) {
+                throw new IllegalStateException();
+            }
+            unlink(currentEntry);
+            if (lookedAhead) {
+                currentEntry.time = nanos;
+                currentEntry.removed = true;
+                removedEntries++;
+                schedule(currentEntry);
+            } else {
+                iterator.remove();
+            }
+            currentEntry = null;
+        }
+    }
+
+    private class KeyIterator extends ExpiringIterator<K> {
+        @Override
+        public K next() {
+            return nextEntry().key;
+        }
+    }
+
+    private class ValueIterator extends ExpiringIterator<V> {
+        @Override
+        public V next() {
+            return nextEntry().value;
+        }
+    }
+
+    private class EntryIterator extends ExpiringIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            return nextEntry();
+        }
+    }
+
+}
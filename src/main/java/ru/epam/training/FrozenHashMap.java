@@ -0,0 +1,472 @@
+package ru.epam.training;
+
+import java.util.*;
+
+/**
+ * Immutable Map, which places keys by a minimal perfect hash function built with the CHD
+ * (compress, hash and displace) algorithm. Keys are hashed into buckets of about LAMBDA keys,
+ * and every bucket gets a displacement which moves its keys into free slots of a table of
+ * exactly size slots. A lookup is one displacement read, one slot probe and one equals,
+ * there are no chains and no empty slots.
+ * Keys with equal hash codes can not be separated by any function of the hash code: one of
+ * them takes the slot, the others are kept in a small overflow map, which is checked only
+ * for marked slots. A map frozen from a CustomHashMap with randomized hashing hashes keys
+ * with the same keys of SipHash, so crafted keys with equal hash codes do not collide here either.
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class FrozenHashMap<K, V> implements Map<K, V> {
+
+    /**
+     * Average amount of keys per bucket, a bigger value takes less memory but longer to build.
+     */
+    static final int LAMBDA = 4;
+
+    /**
+     * Amount of bucket seeds tried before the search of displacements gives up.
+     */
+    private static final int MAXIMUM_ATTEMPTS = 8;
+
+    /**
+     * Minimal amount of displacements tried for a bucket, at least 16 per slot are tried
+     * before the bucket seed is changed.
+     */
+    private static final int MINIMAL_DISPLACEMENT_LIMIT = 1 << 10;
+
+    /**
+     * Keys of slots followed by keys of overflow entries.
+     */
+    private final Object[] keys;
+
+    private final Object[] values;
+
+    /**
+     * Amount of slots of the perfect hash table.
+     */
+    private final int slotCount;
+
+    private final int[] displacements;
+
+    /**
+     * Slots whose hash code is shared with overflow keys, null if there are none.
+     */
+    private final long[] collidedSlots;
+
+    private final CustomHashMap<Object, Object> overflow;
+
+    private final boolean randomizedHashing;
+
+    private final long hashKey0;
+
+    private final long hashKey1;
+
+    /**
+     * Seed which spreads hashes over buckets, the first one for which displacements of every bucket are found.
+     */
+    private final int bucketSeed;
+
+    /**
+     * @param m map for copy
+     * @throws NullPointerException  if m == null
+     * @throws IllegalStateException if no perfect hash function is found, which is practically impossible
+     */
+
+    public FrozenHashMap(Map<? extends K, ? extends V> m) {
+        this(m, false, 0, 0);
+    }
+
+    /**
+     * @param m                 map for copy
+     * @param randomizedHashing if keys are hashed with the given keys like in CustomHashMap
+     * @param hashKey0          first half of the key of SipHash
+     * @param hashKey1          second half of the key of SipHash
+     */
+
+    FrozenHashMap(Map<? extends K, ? extends V> m, boolean randomizedHashing, long hashKey0, long hashKey1) {
+        this.randomizedHashing = randomizedHashing;
+        this.hashKey0 = hashKey0;
+        this.hashKey1 = hashKey1;
+        int size = m.size();
+        Object[] entryKeys = new Object[size];
+        Object[] entryValues = new Object[size];
+        long[] hashIndexes = new long[size];
+        int count = 0;
+        for (Map.Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            entryKeys[count] = entry.getKey();
+            entryValues[count] = entry.getValue();
+            hashIndexes[count] = (long) hash(entry.getKey()) << 32 | count;
+            count++;
+        }
+        Arrays.sort(hashIndexes);
+
+        int uniqueCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || (int) (hashIndexes[i] >> 32) != (int) (hashIndexes[i - 1] >> 32)) {
+                uniqueCount++;
+            }
+        }
+        slotCount = uniqueCount;
+        keys = new Object[size];
+        values = new Object[size];
+        int[] uniqueHashes = new int[uniqueCount];
+        int[] uniqueIndexes = new int[uniqueCount];
+        CustomHashMap<Object, Object> overflowEntries = null;
+        int unique = 0;
+        int overflowSlot = uniqueCount;
+        for (int i = 0; i < size; i++) {
+            int hash = (int) (hashIndexes[i] >> 32);
+            int index = (int) hashIndexes[i];
+            if (i == 0 || hash != (int) (hashIndexes[i - 1] >> 32)) {
+                uniqueHashes[unique] = hash;
+                uniqueIndexes[unique++] = index;
+            } else {
+                if (overflowEntries == null) {
+                    overflowEntries = new CustomHashMap<>(CustomHashMap.DEFAULT_CAPACITY, CustomHashMap.DEFAULT_LOAD_FACTOR,
+                            randomizedHashing);
+                }
+                overflowEntries.put(entryKeys[index], entryValues[index]);
+                keys[overflowSlot] = entryKeys[index];
+                values[overflowSlot++] = entryValues[index];
+            }
+        }
+        overflow = overflowEntries;
+
+        displacements = new int[Math.max(1, uniqueCount / LAMBDA)];
+        int[] slots = null;
+        int seed = 0;
+        for (int attempt = 0; slots == null; attempt++) {
+            if (attempt == MAXIMUM_ATTEMPTS) {
+                throw new IllegalStateException("No perfect hash function found for " + uniqueCount + " hash codes");
+            }
+            seed = -1 - attempt;
+            slots = place(uniqueHashes, seed);
+        }
+        bucketSeed = seed;
+        for (int i = 0; i < uniqueCount; i++) {
+            keys[slots[i]] = entryKeys[uniqueIndexes[i]];
+            values[slots[i]] = entryValues[uniqueIndexes[i]];
+        }
+        if (overflow == null) {
+            collidedSlots = null;
+        } else {
+            collidedSlots = new long[(slotCount + 63) >>> 6];
+            for (Object key : overflow.keySet()) {
+                int slot = slotOf(hash(key));
+                collidedSlots[slot >>> 6] |= 1L << slot;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (slotCount == 0) {
+            return false;
+        }
+        int hash = hash(key);
+        int slot = slotOf(hash);
+        Object slotKey = keys[slot];
+        if (slotKey == key || (key != null && key.equals(slotKey))) {
+            return true;
+        }
+        return isCollided(slot) && overflow.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (Object currentValue : values) {
+            if (Objects.equals(currentValue, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (slotCount == 0) {
+            return null;
+        }
+        int slot = slotOf(hash(key));
+        Object slotKey = keys[slot];
+        if (slotKey == key || (key != null && key.equals(slotKey))) {
+            return (V) values[slot];
+        }
+        return isCollided(slot) ? (V) overflow.get(key) : null;
+    }
+
+    /**
+     * @throws UnsupportedOperationException always
+     */
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @throws UnsupportedOperationException always
+     */
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @throws UnsupportedOperationException always
+     */
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @throws UnsupportedOperationException always
+     */
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new ValueCollection();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    private int hash(Object key) {
+        return CustomHashMap.hash(key, randomizedHashing, hashKey0, hashKey1);
+    }
+
+    /**
+     * Scrambles the hash code with a seed, so different seeds give independent positions.
+     */
+
+    private static int mix(int hash, int seed) {
+        int h = hash * 0x9E3779B9 + seed * 0x85EBCA6B;
+        h ^= h >>> 16;
+        h *= 0x7FEB352D;
+        h ^= h >>> 15;
+        h *= 0x846CA68B;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Maps an int to [0, bound) by a multiplication, which is cheaper than a division.
+     */
+
+    private static int reduce(int h, int bound) {
+        return (int) (((h & 0xFFFFFFFFL) * bound) >>> 32);
+    }
+
+    private int bucketOf(int hash, int seed) {
+        return reduce(mix(hash, seed), displacements.length);
+    }
+
+    private int slotOf(int hash) {
+        return reduce(mix(hash, displacements[bucketOf(hash, bucketSeed)]), slotCount);
+    }
+
+    private boolean isCollided(int slot) {
+        return collidedSlots != null && (collidedSlots[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * @return amount of keys with hash codes equal to hash codes of other keys
+     */
+
+    int overflowSize() {
+        return overflow == null ? 0 : overflow.size();
+    }
+
+    /**
+     * Searches displacements of buckets spread by the seed, biggest buckets first while most slots are free.
+     * Displacements of a bucket are non-negative, so they never repeat the negative bucket seed.
+     *
+     * @return slot of every hash, or null if some bucket can not be placed with a limited amount of displacements
+     */
+
+    private int[] place(int[] hashes, int seed) {
+        int bucketCount = displacements.length;
+        int[] bucketStarts = new int[bucketCount + 1];
+        for (int hash : hashes) {
+            bucketStarts[bucketOf(hash, seed) + 1]++;
+        }
+        int maxBucketSize = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            maxBucketSize = Math.max(maxBucketSize, bucketStarts[bucket + 1]);
+            bucketStarts[bucket + 1] += bucketStarts[bucket];
+        }
+        int[] members = new int[hashes.length];
+        int[] fill = Arrays.copyOf(bucketStarts, bucketCount);
+        for (int i = 0; i < hashes.length; i++) {
+            members[fill[bucketOf(hashes[i], seed)]++] = i;
+        }
+
+        int[] sizeStarts = new int[maxBucketSize + 2];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            sizeStarts[maxBucketSize - (bucketStarts[bucket + 1] - bucketStarts[bucket]) + 1]++;
+        }
+        for (int i = 1; i < sizeStarts.length; i++) {
+            sizeStarts[i] += sizeStarts[i - 1];
+        }
+        int[] bucketOrder = new int[bucketCount];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bucketOrder[sizeStarts[maxBucketSize - (bucketStarts[bucket + 1] - bucketStarts[bucket])]++] = bucket;
+        }
+
+        int displacementLimit = (int) Math.min(Integer.MAX_VALUE, Math.max(MINIMAL_DISPLACEMENT_LIMIT, 16L * slotCount));
+        int[] slots = new int[hashes.length];
+        long[] occupied = new long[(slotCount + 63) >>> 6];
+        for (int bucket : bucketOrder) {
+            int from = bucketStarts[bucket];
+            int to = bucketStarts[bucket + 1];
+            for (int displacement = 0; from < to; displacement++) {
+                if (displacement == displacementLimit) {
+                    return null;
+                }
+                int placed = from;
+                while (placed < to) {
+                    int slot = reduce(mix(hashes[members[placed]], displacement), slotCount);
+                    if ((occupied[slot >>> 6] & (1L << slot)) != 0) {
+                        break;
+                    }
+                    occupied[slot >>> 6] |= 1L << slot;
+                    slots[members[placed]] = slot;
+                    placed++;
+                }
+                if (placed == to) {
+                    displacements[bucket] = displacement;
+                    break;
+                }
+                for (int i = from; i < placed; i++) {
+                    int slot = slots[members[i]];
+                    occupied[slot >>> 6] &= ~(1L << slot);
+                }
+            }
+        }
+        return slots;
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return FrozenHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return FrozenHashMap.this.containsKey(o);
+        }
+    }
+
+    private class ValueCollection extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return FrozenHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return FrozenHashMap.this.containsValue(o);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return FrozenHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                return containsKey(entry.getKey()) && Objects.equals(get(entry.getKey()), entry.getValue());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Walks slots and then overflow entries, removal is not supported.
+     */
+
+    private abstract class FrozenIterator<E> implements Iterator<E> {
+        private int nextIndex = 0;
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < keys.length;
+        }
+
+        int nextIndex() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return nextIndex++;
+        }
+    }
+
+    private class KeyIterator extends FrozenIterator<K> {
+        @Override
+        public K next() {
+            return (K) keys[nextIndex()];
+        }
+    }
+
+    private class ValueIterator extends FrozenIterator<V> {
+        @Override
+        public V next() {
+            return (V) values[nextIndex()];
+        }
+    }
+
+    private class EntryIterator extends FrozenIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            int index = nextIndex();
+            return new AbstractMap.SimpleImmutableEntry<>((K) keys[index], (V) values[index]);
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+package ru.epam.training;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Hash map from int keys to object values which never boxes the keys.
+ * Keys and values are kept in parallel arrays with linear probing, removal shifts
+ * the following entries of the cluster back, so no allocation happens until the table grows.
+ * Null values are not allowed: a slot is free when its value is null, and null is returned for absent keys.
+ *
+ * @param <V> value for entry of the map
+ */
+
+public class IntObjectHashMap<V> {
+
+    private final float loadFactor;
+
+    private int[] keys;
+
+    private Object[] values;
+
+    private int threshold;
+
+    private int size = 0;
+
+    /**
+     * Amount of insertions and removals of keys, used to detect them in the mapping function.
+     */
+    private int modCount = 0;
+
+    public IntObjectHashMap() {
+        this(PrimitiveHashes.DEFAULT_CAPACITY);
+    }
+
+    public IntObjectHashMap(int initialCapacity) {
+        this(initialCapacity, PrimitiveHashes.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity expected amount of entries
+     * @param loadFactor      maximal part of occupied slots before the table grows
+     * @throws IllegalArgumentException if initialCapacity is negative or loadFactor is not in (0, 1)
+     */
+
+    public IntObjectHashMap(int initialCapacity, float loadFactor) {
+        int capacity = PrimitiveHashes.tableSizeFor(initialCapacity, loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return value for the key or null if there is no such key
+     */
+
+    public V get(int key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    /**
+     * @return previous value for the key or null if there was no such key
+     * @throws NullPointerException if value is null
+     */
+
+    public V put(int key, V value) {
+        Objects.requireNonNull(value);
+        int mask = keys.length - 1;
+        int index = PrimitiveHashes.mix(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V oldValue = (V) values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            index = (index + 1) & mask;
+        }
+        insertAt(index, key, value);
+        return null;
+    }
+
+    /**
+     * Returns value for the key, an absent key is put with the value made by the function.
+     *
+     * @return current or computed value, null if the function returned null
+     * @throws ConcurrentModificationException if the function adds or removes keys of this map
+     */
+
+    public V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+        int mask = keys.length - 1;
+        int index = PrimitiveHashes.mix(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return (V) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        int expectedModCount = modCount;
+        V value = mappingFunction.apply(key);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (value != null) {
+            insertAt(index, key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return removed value or null if there was no such key
+     */
+
+    public V remove(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V oldValue = (V) values[index];
+        removeAt(index);
+        return oldValue;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        modCount++;
+    }
+
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        threshold = PrimitiveHashes.thresholdFor(capacity, loadFactor);
+    }
+
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int index = PrimitiveHashes.mix(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insertAt(int index, int key, Object value) {
+        keys[index] = key;
+        values[index] = value;
+        modCount++;
+        if (++size > threshold) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Frees the slot and moves back every following entry of the cluster which may take it.
+     */
+
+    private void removeAt(int index) {
+        int mask = keys.length - 1;
+        int gap = index;
+        int current = index;
+        while (true) {
+            current = (current + 1) & mask;
+            if (values[current] == null) {
+                break;
+            }
+            int currentKey = keys[current];
+            int home = PrimitiveHashes.mix(currentKey) & mask;
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                keys[gap] = currentKey;
+                values[gap] = values[current];
+                gap = current;
+            }
+        }
+        values[gap] = null;
+        size--;
+        modCount++;
+    }
+
+    private void resize(int newCapacity) {
+        if (keys.length == PrimitiveHashes.MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int index = PrimitiveHashes.mix(oldKeys[i]) & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+}
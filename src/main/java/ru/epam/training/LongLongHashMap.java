@@ -0,0 +1,261 @@
+package ru.epam.training;
+
+import java.util.*;
+
+/**
+ * Hash map from long keys to long values which never boxes them.
+ * Keys and values are kept in parallel arrays with linear probing, removal shifts
+ * the following entries of the cluster back, so no allocation happens until the table grows.
+ * Absence of a key is reported by the no entry value given to the constructor.
+ */
+
+public class LongLongHashMap {
+
+    /**
+     * Marker of an empty slot, the zero key itself is kept aside.
+     */
+    private static final long FREE_KEY = 0L;
+
+    private final float loadFactor;
+
+    private final long noEntryValue;
+
+    private long[] keys;
+
+    private long[] values;
+
+    private boolean hasZeroKey;
+
+    private long zeroKeyValue;
+
+    private int threshold;
+
+    private int size = 0;
+
+    public LongLongHashMap() {
+        this(PrimitiveHashes.DEFAULT_CAPACITY);
+    }
+
+    public LongLongHashMap(int initialCapacity) {
+        this(initialCapacity, PrimitiveHashes.DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    /**
+     * @param initialCapacity expected amount of entries
+     * @param loadFactor      maximal part of occupied slots before the table grows
+     * @param noEntryValue    value returned for absent keys
+     * @throws IllegalArgumentException if initialCapacity is negative or loadFactor is not in (0, 1)
+     */
+
+    public LongLongHashMap(int initialCapacity, float loadFactor, long noEntryValue) {
+        int capacity = PrimitiveHashes.tableSizeFor(initialCapacity, loadFactor);
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getNoEntryValue() {
+        return noEntryValue;
+    }
+
+    public boolean containsKey(long key) {
+        return key == FREE_KEY ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * @return value for the key or no entry value if there is no such key
+     */
+
+    public long get(long key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == FREE_KEY) {
+            return hasZeroKey ? zeroKeyValue : defaultValue;
+        }
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * @return previous value for the key or no entry value if there was no such key
+     */
+
+    public long put(long key, long value) {
+        if (key == FREE_KEY) {
+            long oldValue = hasZeroKey ? zeroKeyValue : noEntryValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroKeyValue = value;
+            return oldValue;
+        }
+        int mask = keys.length - 1;
+        int index = PrimitiveHashes.mix(key) & mask;
+        while (keys[index] != FREE_KEY) {
+            if (keys[index] == key) {
+                long oldValue = values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            index = (index + 1) & mask;
+        }
+        insertAt(index, key, value);
+        return noEntryValue;
+    }
+
+    /**
+     * Adds the increment to the value of the key, an absent key is put with the increment as its value.
+     *
+     * @return new value for the key
+     */
+
+    public long addTo(long key, long increment) {
+        if (key == FREE_KEY) {
+            if (hasZeroKey) {
+                zeroKeyValue += increment;
+            } else {
+                hasZeroKey = true;
+                zeroKeyValue = increment;
+                size++;
+            }
+            return zeroKeyValue;
+        }
+        int mask = keys.length - 1;
+        int index = PrimitiveHashes.mix(key) & mask;
+        while (keys[index] != FREE_KEY) {
+            if (keys[index] == key) {
+                return values[index] += increment;
+            }
+            index = (index + 1) & mask;
+        }
+        insertAt(index, key, increment);
+        return increment;
+    }
+
+    /**
+     * @return removed value or no entry value if there was no such key
+     */
+
+    public long remove(long key) {
+        if (key == FREE_KEY) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            size--;
+            return zeroKeyValue;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return noEntryValue;
+        }
+        long oldValue = values[index];
+        removeAt(index);
+        return oldValue;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(FREE_KEY, zeroKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        threshold = PrimitiveHashes.thresholdFor(capacity, loadFactor);
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = PrimitiveHashes.mix(key) & mask;
+        while (keys[index] != FREE_KEY) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insertAt(int index, long key, long value) {
+        keys[index] = key;
+        values[index] = value;
+        if (++size - (hasZeroKey ? 1 : 0) > threshold) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Frees the slot and moves back every following entry of the cluster which may take it.
+     */
+
+    private void removeAt(int index) {
+        int mask = keys.length - 1;
+        int gap = index;
+        int current = index;
+        while (true) {
+            current = (current + 1) & mask;
+            long currentKey = keys[current];
+            if (currentKey == FREE_KEY) {
+                break;
+            }
+            int home = PrimitiveHashes.mix(currentKey) & mask;
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                keys[gap] = currentKey;
+                values[gap] = values[current];
+                gap = current;
+            }
+        }
+        keys[gap] = FREE_KEY;
+        size--;
+    }
+
+    private void resize(int newCapacity) {
+        if (keys.length == PrimitiveHashes.MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = PrimitiveHashes.mix(key) & mask;
+                while (keys[index] != FREE_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+}
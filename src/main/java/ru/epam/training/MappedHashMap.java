@@ -0,0 +1,542 @@
+package ru.epam.training;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Read-only Map interface over a snapshot file which is mapped into memory.
+ * A snapshot is written by writeSnapshot and opened by open, which maps the file and
+ * reads nothing but its header, so opening takes the same time for any amount of entries.
+ * Lookups follow CustomHashMap: a hash chooses a bucket and is compared before the keys.
+ * The hash is computed from the serialized key, not by hashCode, so a snapshot written by one JVM
+ * is read by another one even for keys whose hashCode is not based on their value, like enums.
+ * Keys are compared in serialized form too, so equal keys must be serialized to equal bytes.
+ * A lookup keeps its serialized key in its own buffer, so the map may be read by many threads.
+ * File layout, little-endian:
+ * header of magic, version, key size, value size, amount of entries and amount of buckets;
+ * bucket table of amount of buckets + 1 record indexes, records of bucket b are [table[b], table[b + 1]);
+ * records of hash, serialized key and serialized value, grouped by bucket.
+ * Mapped memory is released by close(), the map can not be used after that.
+ * Null keys and values are not allowed.
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class MappedHashMap<K, V> implements Map<K, V>, Closeable {
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private static final int MAGIC = 0x43484D53;
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+
+    private static final int KEY_OFFSET = Integer.BYTES;
+
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final OffHeapHashMap.Serializer<K> keySerializer;
+
+    private final OffHeapHashMap.Serializer<V> valueSerializer;
+
+    private final int size;
+
+    private final int capacity;
+
+    private final int valueOffset;
+
+    private final Region table;
+
+    private final Region records;
+
+    private boolean closed = false;
+
+    private MappedHashMap(OffHeapHashMap.Serializer<K> keySerializer, OffHeapHashMap.Serializer<V> valueSerializer,
+                          int size, int capacity, Region table, Region records) {
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.size = size;
+        this.capacity = capacity;
+        this.valueOffset = KEY_OFFSET + keySerializer.size();
+        this.table = table;
+        this.records = records;
+    }
+
+    /**
+     * Writes all entries of the map into the file, replacing its content.
+     * The map must not be modified while it is written.
+     *
+     * @param map             map for writing
+     * @param file            snapshot file
+     * @param keySerializer   writer of keys into records
+     * @param valueSerializer writer of values into records
+     * @throws IOException                     if the file can not be written
+     * @throws NullPointerException            if the map contains null key or value
+     * @throws ConcurrentModificationException if the map is modified while it is written
+     */
+
+    public static <K, V> void writeSnapshot(Map<? extends K, ? extends V> map, Path file,
+                                            OffHeapHashMap.Serializer<K> keySerializer,
+                                            OffHeapHashMap.Serializer<V> valueSerializer) throws IOException {
+        int size = map.size();
+        int capacity = tableSizeFor(size);
+        int mask = capacity - 1;
+        int keySize = keySerializer.size();
+        int recordSize = KEY_OFFSET + keySize + valueSerializer.size();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Region table = Region.map(channel, FileChannel.MapMode.READ_WRITE, HEADER_SIZE, capacity + 1L, Integer.BYTES);
+            Region records = Region.map(channel, FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + (capacity + 1L) * Integer.BYTES, size, recordSize);
+            ByteBuffer keyBuffer = ByteBuffer.allocate(keySize).order(ORDER);
+            try {
+                // counting sort: table[b] counts bucket b, then becomes its end, then its start
+                for (long bucket = 0; bucket <= capacity; bucket++) {
+                    table.putInt(bucket, 0);
+                }
+                for (K key : map.keySet()) {
+                    keySerializer.write(key, keyBuffer, 0);
+                    int bucket = hash(keyBuffer, keySize) & mask;
+                    table.putInt(bucket, table.getInt(bucket) + 1);
+                }
+                int end = 0;
+                for (int bucket = 0; bucket < capacity; bucket++) {
+                    end += table.getInt(bucket);
+                    table.putInt(bucket, end);
+                }
+                if (end != size) {
+                    throw new ConcurrentModificationException();
+                }
+                table.putInt(capacity, size);
+                for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                    keySerializer.write(entry.getKey(), keyBuffer, 0);
+                    int hash = hash(keyBuffer, keySize);
+                    int bucket = hash & mask;
+                    int record = table.getInt(bucket) - 1;
+                    table.putInt(bucket, record);
+                    ByteBuffer chunk = records.chunk(record);
+                    int offset = records.offset(record);
+                    chunk.putInt(offset, hash);
+                    keySerializer.write(entry.getKey(), chunk, offset + KEY_OFFSET);
+                    valueSerializer.write(Objects.requireNonNull(entry.getValue()), chunk, offset + KEY_OFFSET + keySize);
+                }
+                table.force();
+                records.force();
+            } finally {
+                table.free();
+                records.free();
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(keySize).putInt(valueSerializer.size())
+                    .putInt(size).putInt(capacity).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Maps the snapshot file, only its header is read.
+     *
+     * @param file            snapshot file
+     * @param keySerializer   reader of keys, must have the size of keys in the file
+     * @param valueSerializer reader of values, must have the size of values in the file
+     * @throws IOException if the file can not be read or is not a snapshot of such keys and values
+     */
+
+    public static <K, V> MappedHashMap<K, V> open(Path file, OffHeapHashMap.Serializer<K> keySerializer,
+                                                  OffHeapHashMap.Serializer<V> valueSerializer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            int keySize = header.getInt();
+            int valueSize = header.getInt();
+            if (keySize != keySerializer.size() || valueSize != valueSerializer.size()) {
+                throw new IOException("Snapshot of keys of " + keySize + " bytes and values of " + valueSize + " bytes");
+            }
+            int size = header.getInt();
+            int capacity = header.getInt();
+            int recordSize = KEY_OFFSET + keySize + valueSize;
+            long tableBytes = (capacity + 1L) * Integer.BYTES;
+            if (size < 0 || capacity <= 0 || capacity > MAXIMUM_CAPACITY || Integer.bitCount(capacity) != 1
+                    || channel.size() != HEADER_SIZE + tableBytes + (long) size * recordSize) {
+                throw new IOException("Broken snapshot file: " + file);
+            }
+            Region table = Region.map(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE, capacity + 1L, Integer.BYTES);
+            Region records = Region.map(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE + tableBytes, size, recordSize);
+            return new MappedHashMap<>(keySerializer, valueSerializer, size, capacity, table, records);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        checkOpen();
+        if (value == null) {
+            return false;
+        }
+        for (int record = 0; record < size; record++) {
+            if (value.equals(valueAt(record))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        int record = find(key);
+        return record < 0 ? null : valueAt(record);
+    }
+
+    /**
+     * @throws UnsupportedOperationException always
+     */
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @throws UnsupportedOperationException always
+     */
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @throws UnsupportedOperationException always
+     */
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @throws UnsupportedOperationException always
+     */
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Unmaps the file, every next operation throws IllegalStateException.
+     */
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        table.free();
+        records.free();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new ValueCollection();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    /**
+     * Hashes the serialized key eight bytes at a time and mixes higher bits into lower ones,
+     * which are used to choose a bucket.
+     */
+
+    private static int hash(ByteBuffer keyBuffer, int keySize) {
+        long h = keySize;
+        int i = 0;
+        for (; i + Long.BYTES <= keySize; i += Long.BYTES) {
+            h = (h ^ keyBuffer.getLong(i)) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+        }
+        for (; i < keySize; i++) {
+            h = (h ^ keyBuffer.get(i)) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+        }
+        h ^= h >>> 29;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return power of two amount of buckets, about one entry per bucket
+     */
+
+    private static int tableSizeFor(int size) {
+        if (size >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Map is closed");
+        }
+    }
+
+    private K keyAt(int record) {
+        return keySerializer.read(records.chunk(record), records.offset(record) + KEY_OFFSET);
+    }
+
+    private V valueAt(int record) {
+        return valueSerializer.read(records.chunk(record), records.offset(record) + valueOffset);
+    }
+
+    /**
+     * Serializes the key into a buffer of this lookup and looks for its record among the records of its bucket.
+     *
+     * @return index of the record or -1 if there is no such key
+     */
+
+    private int find(Object key) {
+        checkOpen();
+        Objects.requireNonNull(key);
+        ByteBuffer keyBuffer = ByteBuffer.allocate(keySerializer.size()).order(ORDER);
+        keySerializer.write((K) key, keyBuffer, 0);
+        int hash = hash(keyBuffer, keyBuffer.capacity());
+        int bucket = hash & (capacity - 1);
+        int end = table.getInt(bucket + 1L);
+        for (int record = table.getInt(bucket); record < end; record++) {
+            ByteBuffer chunk = records.chunk(record);
+            int offset = records.offset(record);
+            if (chunk.getInt(offset) == hash && keyEquals(keyBuffer, chunk, offset + KEY_OFFSET)) {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the key at the position with the key in keyBuffer, eight bytes at a time.
+     */
+
+    private static boolean keyEquals(ByteBuffer keyBuffer, ByteBuffer chunk, int base) {
+        int keySize = keyBuffer.capacity();
+        int i = 0;
+        for (; i + Long.BYTES <= keySize; i += Long.BYTES) {
+            if (keyBuffer.getLong(i) != chunk.getLong(base + i)) {
+                return false;
+            }
+        }
+        for (; i < keySize; i++) {
+            if (keyBuffer.get(i) != chunk.get(base + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Array of fixed-size elements mapped from a file by chunks, since a single mapping is limited to 2 GB.
+     * An element never crosses a chunk border.
+     */
+
+    private static final class Region {
+
+        private static final int CHUNK_BYTES = 1 << 30;
+
+        private final MappedByteBuffer[] chunks;
+
+        private final int elementSize;
+
+        private final int chunkShift;
+
+        private final int chunkMask;
+
+        private Region(MappedByteBuffer[] chunks, int elementSize, int chunkShift) {
+            this.chunks = chunks;
+            this.elementSize = elementSize;
+            this.chunkShift = chunkShift;
+            this.chunkMask = (1 << chunkShift) - 1;
+        }
+
+        static Region map(FileChannel channel, FileChannel.MapMode mode, long position, long elements,
+                          int elementSize) throws IOException {
+            int chunkShift = 31 - Integer.numberOfLeadingZeros(CHUNK_BYTES / Math.max(elementSize, 1));
+            long chunkElements = 1L << chunkShift;
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((elements + chunkElements - 1) / chunkElements)];
+            for (int i = 0; i < chunks.length; i++) {
+                long length = Math.min(chunkElements, elements - i * chunkElements) * elementSize;
+                chunks[i] = channel.map(mode, position + i * chunkElements * elementSize, length);
+                chunks[i].order(ORDER);
+            }
+            return new Region(chunks, elementSize, chunkShift);
+        }
+
+        ByteBuffer chunk(long index) {
+            return chunks[(int) (index >>> chunkShift)];
+        }
+
+        int offset(long index) {
+            return (int) (index & chunkMask) * elementSize;
+        }
+
+        int getInt(long index) {
+            return chunk(index).getInt(offset(index));
+        }
+
+        void putInt(long index, int value) {
+            chunk(index).putInt(offset(index), value);
+        }
+
+        void force() {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+        }
+
+        void free() {
+            for (MappedByteBuffer chunk : chunks) {
+                DirectBuffers.free(chunk);
+            }
+        }
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return MappedHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return MappedHashMap.this.containsKey(o);
+        }
+    }
+
+    private class ValueCollection extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return MappedHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return MappedHashMap.this.containsValue(o);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return MappedHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                V value = get(entry.getKey());
+                return value != null && value.equals(entry.getValue());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Walks records in the order of the file, removal is not supported.
+     */
+
+    private abstract class MappedIterator<E> implements Iterator<E> {
+        private int nextRecord = 0;
+
+        @Override
+        public boolean hasNext() {
+            return nextRecord < size;
+        }
+
+        int nextRecord() {
+            checkOpen();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return nextRecord++;
+        }
+    }
+
+    private class KeyIterator extends MappedIterator<K> {
+        @Override
+        public K next() {
+            return keyAt(nextRecord());
+        }
+    }
+
+    private class ValueIterator extends MappedIterator<V> {
+        @Override
+        public V next() {
+            return valueAt(nextRecord());
+        }
+    }
+
+    private class EntryIterator extends MappedIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            int record = nextRecord();
+            return new AbstractMap.SimpleImmutableEntry<>(keyAt(record), valueAt(record));
+        }
+    }
+
+}
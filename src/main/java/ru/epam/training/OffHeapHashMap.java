@@ -0,0 +1,727 @@
+package ru.epam.training;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+
+/**
+ * Implementation of a Map interface which keeps its entries outside of the Java heap.
+ * Every entry is a fixed-size record in a slab of direct memory: its hash, index of the next
+ * record of the chain, serialized key and serialized value. The bucket table is kept in direct
+ * slabs too, so the heap holds only slab references regardless of the amount of entries.
+ * Lookups follow CustomHashMap: the spread hash code chooses a bucket and is compared before the keys.
+ * Keys are compared in serialized form, so equal keys must be serialized to equal bytes.
+ * Records of removed entries are reused by next insertions.
+ * Memory is freed by close(), the map can not be used after that.
+ * Null keys and values are not allowed.
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class OffHeapHashMap<K, V> implements Map<K, V>, Closeable {
+
+    static final int DEFAULT_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Upper bound of bytes in a slab of records.
+     */
+    static final int RECORD_SLAB_BYTES = 1 << 24;
+
+    private static final int BUCKET_SLAB_SHIFT = 20;
+
+    private static final int BUCKET_SLAB_MASK = (1 << BUCKET_SLAB_SHIFT) - 1;
+
+    private static final int HASH_OFFSET = 0;
+
+    /**
+     * Next record index plus one for a live record, zero ends the chain.
+     * A free record keeps here -2 minus index of the next free record.
+     */
+    private static final int NEXT_OFFSET = 4;
+
+    private static final int KEY_OFFSET = 8;
+
+    private final Serializer<K> keySerializer;
+
+    private final Serializer<V> valueSerializer;
+
+    private final float loadFactor;
+
+    private final int valueOffset;
+
+    private final int recordSize;
+
+    private final int recordSlabShift;
+
+    private final int recordSlabMask;
+
+    /**
+     * Scratch buffer for the serialized key of the current lookup.
+     */
+    private final ByteBuffer keyBuffer;
+
+    /**
+     * Each bucket holds index of the first record of its chain plus one, zero for an empty bucket.
+     */
+    private ByteBuffer[] bucketSlabs;
+
+    private int capacity;
+
+    private ByteBuffer[] recordSlabs = new ByteBuffer[0];
+
+    /**
+     * Amount of records ever allocated, records beyond it are not used yet.
+     */
+    private int recordCount = 0;
+
+    private int freeRecord = -1;
+
+    private int threshold;
+
+    private int size = 0;
+
+    private int modCount = 0;
+
+    private boolean closed = false;
+
+    public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, keySerializer, valueSerializer);
+    }
+
+    public OffHeapHashMap(int initialCapacity, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, keySerializer, valueSerializer);
+    }
+
+    /**
+     * @param initialCapacity amount of buckets in the initial table, rounded up to a power of two
+     * @param loadFactor      maximal average amount of entries per bucket before the table grows
+     * @param keySerializer   writer of keys into records
+     * @param valueSerializer writer of values into records
+     * @throws IllegalArgumentException if initialCapacity is negative, loadFactor is not positive
+     *                                  or serializers have no fixed size
+     */
+
+    public OffHeapHashMap(int initialCapacity, float loadFactor, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(initialCapacity, loadFactor, keySerializer, valueSerializer, RECORD_SLAB_BYTES);
+    }
+
+    OffHeapHashMap(int initialCapacity, float loadFactor, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                   int recordSlabBytes) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        int keySize = keySerializer.size();
+        int valueSize = valueSerializer.size();
+        if (keySize <= 0 || valueSize < 0 || (long) KEY_OFFSET + keySize + valueSize > recordSlabBytes) {
+            throw new IllegalArgumentException("Illegal record size: key " + keySize + ", value " + valueSize);
+        }
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.loadFactor = loadFactor;
+        this.valueOffset = KEY_OFFSET + keySize;
+        this.recordSize = valueOffset + valueSize;
+        this.recordSlabShift = 31 - Integer.numberOfLeadingZeros(recordSlabBytes / recordSize);
+        this.recordSlabMask = (1 << recordSlabShift) - 1;
+        this.keyBuffer = ByteBuffer.allocate(keySize).order(ByteOrder.nativeOrder());
+        allocateBuckets(tableSizeFor(initialCapacity));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        checkOpen();
+        if (value == null) {
+            return false;
+        }
+        for (int record = 0; record < recordCount; record++) {
+            if (isLive(record) && value.equals(valueAt(record))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        int record = find(key);
+        return record < 0 ? null : valueAt(record);
+    }
+
+    /**
+     * @throws NullPointerException if key or value is null
+     */
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        int hash = hash(key);
+        int record = find(key, hash);
+        if (record >= 0) {
+            V oldValue = valueAt(record);
+            valueSerializer.write(value, slab(record), offset(record) + valueOffset);
+            return oldValue;
+        }
+        if (size >= threshold) {
+            resize(capacity * 2);
+        }
+        record = allocateRecord();
+        ByteBuffer slab = slab(record);
+        int offset = offset(record);
+        slab.putInt(offset + HASH_OFFSET, hash);
+        keySerializer.write(key, slab, offset + KEY_OFFSET);
+        valueSerializer.write(value, slab, offset + valueOffset);
+        int bucket = hash & (capacity - 1);
+        slab.putInt(offset + NEXT_OFFSET, bucketAt(bucket));
+        setBucket(bucket, record + 1);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        checkOpen();
+        int hash = hash(key);
+        keySerializer.write((K) key, keyBuffer, 0);
+        int bucket = hash & (capacity - 1);
+        int previous = -1;
+        int record = bucketAt(bucket) - 1;
+        while (record >= 0) {
+            int next = nextAt(record);
+            if (hashAt(record) == hash && keyEquals(record)) {
+                V oldValue = valueAt(record);
+                unlink(bucket, previous, record);
+                return oldValue;
+            }
+            previous = record;
+            record = next;
+        }
+        return null;
+    }
+
+    /**
+     * @param m map for insert
+     * @throws NullPointerException if m == null
+     */
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> insertionEntry : m.entrySet()) {
+            this.put(insertionEntry.getKey(), insertionEntry.getValue());
+        }
+    }
+
+    /**
+     * Frees all record slabs, the bucket table keeps its capacity.
+     */
+
+    @Override
+    public void clear() {
+        checkOpen();
+        for (ByteBuffer bucketSlab : bucketSlabs) {
+            for (int i = 0; i < bucketSlab.capacity(); i += Integer.BYTES) {
+                bucketSlab.putInt(i, 0);
+            }
+        }
+        freeRecordSlabs();
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Frees memory of the map, every next operation throws IllegalStateException.
+     */
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        freeRecordSlabs();
+        for (ByteBuffer bucketSlab : bucketSlabs) {
+            DirectBuffers.free(bucketSlab);
+        }
+        bucketSlabs = new ByteBuffer[0];
+        capacity = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new ValueCollection();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    /**
+     * Mixes higher bits of the hash code into lower ones, which are used to choose a bucket.
+     */
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    private static ByteBuffer allocateDirect(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Map is closed");
+        }
+    }
+
+    private void allocateBuckets(int newCapacity) {
+        int slabBuckets = Math.min(newCapacity, 1 << BUCKET_SLAB_SHIFT);
+        bucketSlabs = new ByteBuffer[newCapacity / slabBuckets];
+        for (int i = 0; i < bucketSlabs.length; i++) {
+            bucketSlabs[i] = allocateDirect(slabBuckets * Integer.BYTES);
+        }
+        capacity = newCapacity;
+        threshold = newCapacity == MAXIMUM_CAPACITY
+                ? Integer.MAX_VALUE : (int) Math.min(newCapacity * loadFactor, Integer.MAX_VALUE);
+    }
+
+    private int bucketAt(int bucket) {
+        return bucketSlabs[bucket >>> BUCKET_SLAB_SHIFT].getInt((bucket & BUCKET_SLAB_MASK) * Integer.BYTES);
+    }
+
+    private void setBucket(int bucket, int value) {
+        bucketSlabs[bucket >>> BUCKET_SLAB_SHIFT].putInt((bucket & BUCKET_SLAB_MASK) * Integer.BYTES, value);
+    }
+
+    private ByteBuffer slab(int record) {
+        return recordSlabs[record >>> recordSlabShift];
+    }
+
+    private int offset(int record) {
+        return (record & recordSlabMask) * recordSize;
+    }
+
+    private int hashAt(int record) {
+        return slab(record).getInt(offset(record) + HASH_OFFSET);
+    }
+
+    /**
+     * @return index of the next record of the chain, -1 at the end of the chain
+     */
+
+    private int nextAt(int record) {
+        return slab(record).getInt(offset(record) + NEXT_OFFSET) - 1;
+    }
+
+    private void setNext(int record, int next) {
+        slab(record).putInt(offset(record) + NEXT_OFFSET, next + 1);
+    }
+
+    private boolean isLive(int record) {
+        return slab(record).getInt(offset(record) + NEXT_OFFSET) >= 0;
+    }
+
+    private K keyAt(int record) {
+        return keySerializer.read(slab(record), offset(record) + KEY_OFFSET);
+    }
+
+    private V valueAt(int record) {
+        return valueSerializer.read(slab(record), offset(record) + valueOffset);
+    }
+
+    /**
+     * Compares the record key with the key in keyBuffer, eight bytes at a time.
+     */
+
+    private boolean keyEquals(int record) {
+        ByteBuffer slab = slab(record);
+        int base = offset(record) + KEY_OFFSET;
+        int keySize = keyBuffer.capacity();
+        int i = 0;
+        for (; i + Long.BYTES <= keySize; i += Long.BYTES) {
+            if (keyBuffer.getLong(i) != slab.getLong(base + i)) {
+                return false;
+            }
+        }
+        for (; i < keySize; i++) {
+            if (keyBuffer.get(i) != slab.get(base + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int find(Object key) {
+        return find(key, hash(key));
+    }
+
+    /**
+     * Serializes the key into keyBuffer and looks for its record.
+     *
+     * @return index of the record or -1 if there is no such key
+     */
+
+    private int find(Object key, int hash) {
+        checkOpen();
+        keySerializer.write((K) key, keyBuffer, 0);
+        int record = bucketAt(hash & (capacity - 1)) - 1;
+        while (record >= 0) {
+            if (hashAt(record) == hash && keyEquals(record)) {
+                return record;
+            }
+            record = nextAt(record);
+        }
+        return -1;
+    }
+
+    private int allocateRecord() {
+        if (freeRecord >= 0) {
+            int record = freeRecord;
+            freeRecord = -2 - slab(record).getInt(offset(record) + NEXT_OFFSET);
+            return record;
+        }
+        if (recordCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Map is full");
+        }
+        int slabIndex = recordCount >>> recordSlabShift;
+        if (slabIndex == recordSlabs.length) {
+            recordSlabs = Arrays.copyOf(recordSlabs, slabIndex + 1);
+            recordSlabs[slabIndex] = allocateDirect((recordSlabMask + 1) * recordSize);
+        }
+        return recordCount++;
+    }
+
+    private void unlink(int bucket, int previous, int record) {
+        int next = nextAt(record);
+        if (previous < 0) {
+            setBucket(bucket, next + 1);
+        } else {
+            setNext(previous, next);
+        }
+        slab(record).putInt(offset(record) + NEXT_OFFSET, -2 - freeRecord);
+        freeRecord = record;
+        size--;
+        modCount++;
+    }
+
+    private void removeRecord(int record) {
+        int bucket = hashAt(record) & (capacity - 1);
+        int previous = -1;
+        int current = bucketAt(bucket) - 1;
+        while (current != record) {
+            previous = current;
+            current = nextAt(current);
+        }
+        unlink(bucket, previous, record);
+    }
+
+    private void freeRecordSlabs() {
+        for (ByteBuffer recordSlab : recordSlabs) {
+            DirectBuffers.free(recordSlab);
+        }
+        recordSlabs = new ByteBuffer[0];
+        recordCount = 0;
+        freeRecord = -1;
+    }
+
+    /**
+     * Relinks every record into a bigger table, records themselves stay in place.
+     */
+
+    private void resize(int newCapacity) {
+        if (capacity == MAXIMUM_CAPACITY) {
+            return;
+        }
+        ByteBuffer[] oldBucketSlabs = bucketSlabs;
+        int oldCapacity = capacity;
+        allocateBuckets(newCapacity);
+        int mask = newCapacity - 1;
+        for (int oldBucket = 0; oldBucket < oldCapacity; oldBucket++) {
+            int record = oldBucketSlabs[oldBucket >>> BUCKET_SLAB_SHIFT]
+                    .getInt((oldBucket & BUCKET_SLAB_MASK) * Integer.BYTES) - 1;
+            while (record >= 0) {
+                int next = nextAt(record);
+                int bucket = hashAt(record) & mask;
+                setNext(record, bucketAt(bucket) - 1);
+                setBucket(bucket, record + 1);
+                record = next;
+            }
+        }
+        for (ByteBuffer oldBucketSlab : oldBucketSlabs) {
+            DirectBuffers.free(oldBucketSlab);
+        }
+    }
+
+    /**
+     * Writes and reads values of a fixed size at absolute positions of a buffer.
+     *
+     * @param <T> type of the values
+     */
+
+    public interface Serializer<T> {
+
+        Serializer<Integer> INTEGER = new Serializer<Integer>() {
+            @Override
+            public int size() {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public void write(Integer value, ByteBuffer buffer, int offset) {
+                buffer.putInt(offset, value);
+            }
+
+            @Override
+            public Integer read(ByteBuffer buffer, int offset) {
+                return buffer.getInt(offset);
+            }
+        };
+
+        Serializer<Long> LONG = new Serializer<Long>() {
+            @Override
+            public int size() {
+                return Long.BYTES;
+            }
+
+            @Override
+            public void write(Long value, ByteBuffer buffer, int offset) {
+                buffer.putLong(offset, value);
+            }
+
+            @Override
+            public Long read(ByteBuffer buffer, int offset) {
+                return buffer.getLong(offset);
+            }
+        };
+
+        /**
+         * @return amount of bytes taken by every value
+         */
+        int size();
+
+        /**
+         * Writes size() bytes starting at the offset, position of the buffer is not changed.
+         */
+        void write(T value, ByteBuffer buffer, int offset);
+
+        T read(ByteBuffer buffer, int offset);
+    }
+
+    private class OffHeapEntry implements Map.Entry<K, V> {
+
+        private final K key;
+        private V value;
+
+        OffHeapEntry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = this.value;
+            OffHeapHashMap.this.put(key, value);
+            this.value = value;
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return OffHeapHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return OffHeapHashMap.this.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return OffHeapHashMap.this.remove(o) != null;
+        }
+    }
+
+    private class ValueCollection extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return OffHeapHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return OffHeapHashMap.this.containsValue(o);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return OffHeapHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                V value = get(entry.getKey());
+                return value != null && value.equals(entry.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                OffHeapHashMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Walks records in the order of their indexes and skips free ones.
+     * Removal never moves records, so the walk is not affected by it.
+     */
+
+    private abstract class OffHeapIterator<E> implements Iterator<E> {
+        private int nextRecord = 0;
+        private int lastReturned = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            while (nextRecord < recordCount && !isLive(nextRecord)) {
+                nextRecord++;
+            }
+            return nextRecord < recordCount;
+        }
+
+        int nextRecord() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = nextRecord++;
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeRecord(lastReturned);
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private class KeyIterator extends OffHeapIterator<K> {
+        @Override
+        public K next() {
+            return keyAt(nextRecord());
+        }
+    }
+
+    private class ValueIterator extends OffHeapIterator<V> {
+        @Override
+        public V next() {
+            return valueAt(nextRecord());
+        }
+    }
+
+    private class EntryIterator extends OffHeapIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            int record = nextRecord();
+            return new OffHeapEntry(keyAt(record), valueAt(record));
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package ru.epam.training;
+
+/**
+ * Hashing helpers shared by the maps with primitive keys.
+ */
+
+final class PrimitiveHashes {
+
+    static final int DEFAULT_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private PrimitiveHashes() {
+    }
+
+    /**
+     * Multiplicative mixing, so sequential keys are spread over the whole table.
+     */
+
+    static int mix(long key) {
+        long h = key * GOLDEN_RATIO;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    static int mix(int key) {
+        int h = key * (int) GOLDEN_RATIO;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return power of two table length which holds the expected amount of entries without growing
+     * @throws IllegalArgumentException if expected size is negative or load factor is not in (0, 1)
+     */
+
+    static int tableSizeFor(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + expectedSize);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        long required = (long) Math.ceil(expectedSize / (double) loadFactor) + 1;
+        if (required >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return Math.max(2, Integer.highestOneBit((int) required - 1) << 1);
+    }
+
+    static int thresholdFor(int capacity, float loadFactor) {
+        return Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+}
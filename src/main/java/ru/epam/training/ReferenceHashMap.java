@@ -0,0 +1,613 @@
+package ru.epam.training;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Implementation of a Map interface whose keys or values may be held by weak or soft references,
+ * so the garbage collector can reclaim them: weak keys do not keep class loaders and other
+ * metadata owners alive, soft values are released when the heap runs low.
+ * Cleared references are put into a ReferenceQueue, which is polled by every operation,
+ * and their entries are removed, so no cleaner thread is needed.
+ * Keys are compared by equals. Entries whose references are cleared but not expunged yet
+ * are never returned, but may still be counted by size().
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class ReferenceHashMap<K, V> implements Map<K, V> {
+
+    static final int DEFAULT_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Replacement of null keys and values, which can not be referents.
+     */
+    private static final Object NULL = new Object();
+
+    private final Strength keyStrength;
+
+    private final Strength valueStrength;
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    private final float loadFactor;
+
+    private ReferenceEntry[] buckets;
+
+    private int threshold;
+
+    private int size = 0;
+
+    /**
+     * Amount of structural modifications, used by iterators to fail fast.
+     */
+    private int modCount = 0;
+
+    public ReferenceHashMap(Strength keyStrength, Strength valueStrength) {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, keyStrength, valueStrength);
+    }
+
+    /**
+     * @param initialCapacity amount of buckets in the initial table, rounded up to a power of two
+     * @param loadFactor      maximal average amount of entries per bucket before the table grows
+     * @param keyStrength     how keys are referenced
+     * @param valueStrength   how values are referenced
+     * @throws IllegalArgumentException if initialCapacity is negative or loadFactor is not positive
+     */
+
+    public ReferenceHashMap(int initialCapacity, float loadFactor, Strength keyStrength, Strength valueStrength) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.keyStrength = Objects.requireNonNull(keyStrength);
+        this.valueStrength = Objects.requireNonNull(valueStrength);
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor(initialCapacity));
+    }
+
+    /**
+     * @return map with weak keys and strong values, like WeakHashMap
+     */
+
+    public static <K, V> ReferenceHashMap<K, V> weakKeys() {
+        return new ReferenceHashMap<>(Strength.WEAK, Strength.STRONG);
+    }
+
+    /**
+     * @return map with strong keys and soft values, for caches which shrink under heap pressure
+     */
+
+    public static <K, V> ReferenceHashMap<K, V> softValues() {
+        return new ReferenceHashMap<>(Strength.STRONG, Strength.SOFT);
+    }
+
+    @Override
+    public int size() {
+        expungeStaleEntries();
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getEntry(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        expungeStaleEntries();
+        Object maskedValue = maskNull(value);
+        for (ReferenceEntry bucket : buckets) {
+            for (ReferenceEntry entry = bucket; entry != null; entry = entry.next) {
+                if (keyOf(entry) != null && maskedValue.equals(valueOf(entry))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        ReferenceEntry entry = getEntry(key);
+        return entry == null ? null : (V) unmaskNull(valueOf(entry));
+    }
+
+    @Override
+    public V put(K key, V value) {
+        expungeStaleEntries();
+        Object maskedKey = maskNull(key);
+        int hash = hash(maskedKey);
+        ReferenceEntry entry = findEntry(maskedKey, hash);
+        if (entry != null) {
+            Object oldValue = valueOf(entry);
+            entry.value = wrap(valueStrength, entry, maskNull(value));
+            return (V) unmaskNull(oldValue);
+        }
+        if (size >= threshold) {
+            resize(buckets.length * 2);
+        }
+        entry = new ReferenceEntry(hash);
+        entry.key = wrap(keyStrength, entry, maskedKey);
+        entry.value = wrap(valueStrength, entry, maskNull(value));
+        int bucketNumber = hash & (buckets.length - 1);
+        entry.next = buckets[bucketNumber];
+        buckets[bucketNumber] = entry;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        ReferenceEntry entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        Object oldValue = valueOf(entry);
+        unlinkEntry(entry);
+        return (V) unmaskNull(oldValue);
+    }
+
+    /**
+     * @param m map for insert
+     * @throws NullPointerException if m == null
+     */
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> insertionEntry : m.entrySet()) {
+            this.put(insertionEntry.getKey(), insertionEntry.getValue());
+        }
+    }
+
+    @Override
+    public void clear() {
+        while (queue.poll() != null) {
+            // references of removed entries are not needed anymore
+        }
+        Arrays.fill(buckets, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new ValueCollection();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    /**
+     * Mixes higher bits of the hash code into lower ones, which are used to choose a bucket.
+     */
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    private static Object maskNull(Object object) {
+        return object == null ? NULL : object;
+    }
+
+    private static Object unmaskNull(Object object) {
+        return object == NULL ? null : object;
+    }
+
+    private void allocate(int capacity) {
+        buckets = new ReferenceEntry[capacity];
+        threshold = capacity == MAXIMUM_CAPACITY ? Integer.MAX_VALUE : (int) Math.min(capacity * loadFactor, Integer.MAX_VALUE);
+    }
+
+    private Object wrap(Strength strength, ReferenceEntry entry, Object referent) {
+        switch (strength) {
+            case WEAK:
+                return new WeakEntryReference(referent, queue, entry);
+            case SOFT:
+                return new SoftEntryReference(referent, queue, entry);
+            default:
+                return referent;
+        }
+    }
+
+    /**
+     * @return masked key or null if it is collected
+     */
+
+    private Object keyOf(ReferenceEntry entry) {
+        return keyStrength == Strength.STRONG ? entry.key : ((Reference<?>) entry.key).get();
+    }
+
+    /**
+     * @return masked value or null if it is collected
+     */
+
+    private Object valueOf(ReferenceEntry entry) {
+        return valueStrength == Strength.STRONG ? entry.value : ((Reference<?>) entry.value).get();
+    }
+
+    /**
+     * Removes entries whose references were cleared by the garbage collector.
+     * A reference of a replaced value may come too, then its entry stays.
+     */
+
+    private void expungeStaleEntries() {
+        Reference<?> reference;
+        while ((reference = queue.poll()) != null) {
+            ReferenceEntry entry = ((EntryReference) reference).entry();
+            if (entry.key == reference || entry.value == reference) {
+                unlinkEntry(entry);
+            }
+        }
+    }
+
+    /**
+     * @return live entry for the key or null, an entry whose value is collected is removed
+     */
+
+    private ReferenceEntry getEntry(Object key) {
+        expungeStaleEntries();
+        Object maskedKey = maskNull(key);
+        ReferenceEntry entry = findEntry(maskedKey, hash(maskedKey));
+        if (entry != null && valueOf(entry) == null) {
+            unlinkEntry(entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private ReferenceEntry findEntry(Object maskedKey, int hash) {
+        for (ReferenceEntry entry = buckets[hash & (buckets.length - 1)]; entry != null; entry = entry.next) {
+            if (entry.hash == hash) {
+                Object currentKey = keyOf(entry);
+                if (currentKey == maskedKey || maskedKey.equals(currentKey)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Unlinks the given entry from its bucket without comparing keys, does nothing if it is already removed.
+     */
+
+    private void unlinkEntry(ReferenceEntry entry) {
+        int bucketNumber = entry.hash & (buckets.length - 1);
+        ReferenceEntry previousEntry = null;
+        for (ReferenceEntry currentEntry = buckets[bucketNumber]; currentEntry != null; currentEntry = currentEntry.next) {
+            if (currentEntry == entry) {
+                if (previousEntry == null) {
+                    buckets[bucketNumber] = currentEntry.next;
+                } else {
+                    previousEntry.next = currentEntry.next;
+                }
+                size--;
+                modCount++;
+                return;
+            }
+            previousEntry = currentEntry;
+        }
+    }
+
+    private void resize(int newCapacity) {
+        if (buckets.length == MAXIMUM_CAPACITY) {
+            return;
+        }
+        ReferenceEntry[] oldBuckets = buckets;
+        allocate(newCapacity);
+        for (ReferenceEntry bucket : oldBuckets) {
+            ReferenceEntry entry = bucket;
+            while (entry != null) {
+                ReferenceEntry nextEntry = entry.next;
+                int bucketNumber = entry.hash & (newCapacity - 1);
+                entry.next = buckets[bucketNumber];
+                buckets[bucketNumber] = entry;
+                entry = nextEntry;
+            }
+        }
+    }
+
+    public enum Strength {
+        /**
+         * Referenced as in an ordinary map.
+         */
+        STRONG,
+        /**
+         * Collected as soon as nothing else references it.
+         */
+        WEAK,
+        /**
+         * Collected when the heap runs low, least recently used first.
+         */
+        SOFT
+    }
+
+    /**
+     * Entry of the map. Key and value fields hold either the referents or references to them.
+     */
+
+    private static final class ReferenceEntry {
+
+        final int hash;
+        Object key;
+        Object value;
+        ReferenceEntry next;
+
+        ReferenceEntry(int hash) {
+            this.hash = hash;
+        }
+    }
+
+    private interface EntryReference {
+        ReferenceEntry entry();
+    }
+
+    private static final class WeakEntryReference extends WeakReference<Object> implements EntryReference {
+
+        private final ReferenceEntry entry;
+
+        WeakEntryReference(Object referent, ReferenceQueue<Object> queue, ReferenceEntry entry) {
+            super(referent, queue);
+            this.entry = entry;
+        }
+
+        @Override
+        public ReferenceEntry entry() {
+            return entry;
+        }
+    }
+
+    private static final class SoftEntryReference extends SoftReference<Object> implements EntryReference {
+
+        private final ReferenceEntry entry;
+
+        SoftEntryReference(Object referent, ReferenceQueue<Object> queue, ReferenceEntry entry) {
+            super(referent, queue);
+            this.entry = entry;
+        }
+
+        @Override
+        public ReferenceEntry entry() {
+            return entry;
+        }
+    }
+
+    /**
+     * Strongly referenced copy of a live entry, setValue writes through.
+     */
+
+    private class ReferenceMapEntry implements Map.Entry<K, V> {
+
+        private final K key;
+        private V value;
+
+        ReferenceMapEntry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = this.value;
+            this.value = value;
+            ReferenceHashMap.this.put(key, value);
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return ReferenceHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return ReferenceHashMap.this.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            ReferenceEntry entry = getEntry(o);
+            if (entry == null) {
+                return false;
+            }
+            unlinkEntry(entry);
+            return true;
+        }
+    }
+
+    private class ValueCollection extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return ReferenceHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return ReferenceHashMap.this.containsValue(o);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return ReferenceHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                ReferenceEntry currentEntry = getEntry(entry.getKey());
+                return currentEntry != null && maskNull(entry.getValue()).equals(valueOf(currentEntry));
+            }
+            return false;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                ReferenceHashMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Walks buckets and skips entries with collected keys or values. Key and value of the next
+     * entry are held strongly, so an entry reported by hasNext can not disappear before next.
+     */
+
+    private abstract class ReferenceIterator<E> implements Iterator<E> {
+        private int bucketIndex = 0;
+        private ReferenceEntry nextEntry;
+        private Object nextKey;
+        private Object nextValue;
+        private ReferenceEntry currentEntry;
+        private int expectedModCount;
+
+        ReferenceIterator() {
+            expungeStaleEntries();
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextKey == null) {
+                nextEntry = nextEntry == null ? null : nextEntry.next;
+                while (nextEntry == null) {
+                    if (bucketIndex == buckets.length) {
+                        return false;
+                    }
+                    nextEntry = buckets[bucketIndex++];
+                }
+                nextValue = valueOf(nextEntry);
+                nextKey = nextValue == null ? null : keyOf(nextEntry);
+            }
+            return true;
+        }
+
+        ReferenceMapEntry nextEntry() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            currentEntry = nextEntry;
+            ReferenceMapEntry entry = new ReferenceMapEntry((K) unmaskNull(nextKey), (V) unmaskNull(nextValue));
+            nextKey = null;
+            nextValue = null;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (currentEntry == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            unlinkEntry(currentEntry);
+            currentEntry = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    private class KeyIterator extends ReferenceIterator<K> {
+        @Override
+        public K next() {
+            return nextEntry().getKey();
+        }
+    }
+
+    private class ValueIterator extends ReferenceIterator<V> {
+        @Override
+        public V next() {
+            return nextEntry().getValue();
+        }
+    }
+
+    private class EntryIterator extends ReferenceIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            return nextEntry();
+        }
+    }
+
+}
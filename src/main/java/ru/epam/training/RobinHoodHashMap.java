@@ -0,0 +1,497 @@
+package ru.epam.training;
+
+import java.util.*;
+
+/**
+ * Implementation of a Map interface with open addressing.
+ * Hashes, keys and values are kept in flat parallel arrays, collisions are resolved
+ * by linear probing with Robin Hood displacement: an entry which is further from its
+ * home slot takes the place of an entry which is closer to its own one.
+ * Removal shifts the following entries of the cluster one slot back, so no tombstones are needed.
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class RobinHoodHashMap<K, V> implements Map<K, V> {
+
+    static final int DEFAULT_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Marker of an empty slot in hashes, real hashes are never zero.
+     */
+    private static final int EMPTY = 0;
+
+    /**
+     * Replacement of the null key inside keys array.
+     */
+    private static final Object NULL_KEY = new Object();
+
+    private final float loadFactor;
+
+    private int[] hashes;
+
+    private Object[] keys;
+
+    private Object[] values;
+
+    private int threshold;
+
+    private int size = 0;
+
+    /**
+     * Amount of structural modifications, used by iterators to fail fast.
+     */
+    private int modCount = 0;
+
+    public RobinHoodHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public RobinHoodHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity expected amount of entries
+     * @param loadFactor      maximal part of occupied slots before the table grows
+     * @throws IllegalArgumentException if initialCapacity is negative or loadFactor is not in (0, 1)
+     */
+
+    public RobinHoodHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor((int) Math.min(MAXIMUM_CAPACITY, Math.ceil(initialCapacity / loadFactor))));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] != EMPTY && Objects.equals(values[i], value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    @Override
+    public V put(K key, V value) {
+        int hash = hash(key);
+        int index = indexOf(key, hash);
+        if (index >= 0) {
+            V oldValue = (V) values[index];
+            values[index] = value;
+            return oldValue;
+        }
+        if (size >= threshold) {
+            resize(hashes.length * 2);
+        }
+        insert(hash, maskNull(key), value);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V oldValue = (V) values[index];
+        removeAt(index);
+        return oldValue;
+    }
+
+    /**
+     * @param m map for insert
+     * @throws NullPointerException if m == null
+     */
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> insertionEntry : m.entrySet()) {
+            this.put(insertionEntry.getKey(), insertionEntry.getValue());
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(hashes, EMPTY);
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new ValueCollection();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        return Math.min(n, MAXIMUM_CAPACITY);
+    }
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        h ^= h >>> 16;
+        return h == EMPTY ? 1 : h;
+    }
+
+    private static Object maskNull(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    private static Object unmaskNull(Object key) {
+        return key == NULL_KEY ? null : key;
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        threshold = capacity == MAXIMUM_CAPACITY ? capacity - 1 : (int) (capacity * loadFactor);
+    }
+
+    /**
+     * @return how far the entry with the given hash in the given slot is from its home slot
+     */
+
+    private int probeDistance(int hash, int index) {
+        int mask = hashes.length - 1;
+        return (index - (hash & mask)) & mask;
+    }
+
+    private int indexOf(Object key) {
+        return indexOf(key, hash(key));
+    }
+
+    private int indexOf(Object key, int hash) {
+        Object maskedKey = maskNull(key);
+        int mask = hashes.length - 1;
+        int index = hash & mask;
+        for (int distance = 0; ; distance++) {
+            int currentHash = hashes[index];
+            if (currentHash == EMPTY || distance > probeDistance(currentHash, index)) {
+                return -1;
+            }
+            if (currentHash == hash && maskedKey.equals(keys[index])) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Places the entry which is known to be absent, displacing richer entries on its way.
+     */
+
+    private void insert(int hash, Object key, Object value) {
+        int mask = hashes.length - 1;
+        int index = hash & mask;
+        int distance = 0;
+        while (true) {
+            int currentHash = hashes[index];
+            if (currentHash == EMPTY) {
+                hashes[index] = hash;
+                keys[index] = key;
+                values[index] = value;
+                return;
+            }
+            int currentDistance = probeDistance(currentHash, index);
+            if (currentDistance < distance) {
+                Object currentKey = keys[index];
+                Object currentValue = values[index];
+                hashes[index] = hash;
+                keys[index] = key;
+                values[index] = value;
+                hash = currentHash;
+                key = currentKey;
+                value = currentValue;
+                distance = currentDistance;
+            }
+            index = (index + 1) & mask;
+            distance++;
+        }
+    }
+
+    /**
+     * Removes the entry in the given slot and shifts the rest of its cluster one slot back.
+     */
+
+    private void removeAt(int index) {
+        int mask = hashes.length - 1;
+        int next = (index + 1) & mask;
+        while (hashes[next] != EMPTY && probeDistance(hashes[next], next) > 0) {
+            hashes[index] = hashes[next];
+            keys[index] = keys[next];
+            values[index] = values[next];
+            index = next;
+            next = (next + 1) & mask;
+        }
+        hashes[index] = EMPTY;
+        keys[index] = null;
+        values[index] = null;
+        size--;
+        modCount++;
+    }
+
+    private void resize(int newCapacity) {
+        if (hashes.length == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        int[] oldHashes = hashes;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != EMPTY) {
+                insert(oldHashes[i], oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private class RobinHoodEntry implements Map.Entry<K, V> {
+
+        private final K key;
+        private V value;
+
+        RobinHoodEntry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = this.value;
+            this.value = value;
+            RobinHoodHashMap.this.put(key, value);
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return RobinHoodHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return RobinHoodHashMap.this.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            int index = indexOf(o);
+            if (index < 0) {
+                return false;
+            }
+            removeAt(index);
+            return true;
+        }
+    }
+
+    private class ValueCollection extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return RobinHoodHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return RobinHoodHashMap.this.containsValue(o);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return RobinHoodHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                int index = indexOf(entry.getKey());
+                return index >= 0 && Objects.equals(values[index], entry.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                removeAt(indexOf(((Map.Entry<?, ?>) o).getKey()));
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Walks slots in place starting right after an empty slot. No cluster crosses that slot,
+     * so removal of the last returned entry shifts back only entries which are not visited yet,
+     * and the freed slot is examined once more.
+     */
+
+    private abstract class RobinHoodIterator<E> implements Iterator<E> {
+        private final int start;
+        private int offset = 1;
+        private int lastReturned = -1;
+        private int lastReturnedOffset;
+        private int expectedModCount = modCount;
+
+        RobinHoodIterator() {
+            int emptySlot = 0;
+            while (hashes[emptySlot] != EMPTY) {
+                emptySlot++;
+            }
+            start = emptySlot;
+        }
+
+        private int slot(int offset) {
+            return (start + offset) & (hashes.length - 1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (offset <= hashes.length && hashes[slot(offset)] == EMPTY) {
+                offset++;
+            }
+            return offset <= hashes.length;
+        }
+
+        int nextSlot() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturnedOffset = offset;
+            lastReturned = slot(offset++);
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(lastReturned);
+            lastReturned = -1;
+            offset = lastReturnedOffset;
+            expectedModCount = modCount;
+        }
+    }
+
+    private class KeyIterator extends RobinHoodIterator<K> {
+        @Override
+        public K next() {
+            return (K) unmaskNull(keys[nextSlot()]);
+        }
+    }
+
+    private class ValueIterator extends RobinHoodIterator<V> {
+        @Override
+        public V next() {
+            return (V) values[nextSlot()];
+        }
+    }
+
+    private class EntryIterator extends RobinHoodIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            int slot = nextSlot();
+            return new RobinHoodEntry((K) unmaskNull(keys[slot]), (V) values[slot]);
+        }
+    }
+
+}
@@ -0,0 +1,461 @@
+package ru.epam.training;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.IntConsumer;
+
+/**
+ * Implementation of a Map interface which spreads keys over independent CustomHashMap shards by
+ * higher bits of the hash, so bulk operations can process shards in parallel on a fork-join pool.
+ * parallelPutAll partitions the input by shard in parallel and then builds every shard in its
+ * own task, no locks are taken because a shard is written by one task only.
+ * Single operations are not thread safe, the map must not be modified during bulk operations.
+ *
+ * @param <K> key for entry of the map
+ * @param <V> value for entry of the map
+ */
+
+public class ShardedHashMap<K, V> implements Map<K, V> {
+
+    static final int MAXIMUM_SHARDS = 1 << 16;
+
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    /**
+     * Minimal amount of elements or shards processed by one task.
+     */
+    private static final int TASK_SIZE = 1 << 13;
+
+    private final CustomHashMap<K, V>[] shards;
+
+    private final int shardShift;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Makes four shards per core of the common pool.
+     */
+
+    public ShardedHashMap() {
+        this(ForkJoinPool.commonPool().getParallelism() * 4, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param shardCount amount of shards, rounded up to a power of two
+     * @param pool       pool which runs bulk operations
+     * @throws IllegalArgumentException if shardCount is not positive
+     */
+
+    public ShardedHashMap(int shardCount, ForkJoinPool pool) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Illegal shard count: " + shardCount);
+        }
+        int shardsAmount = powerOfTwoFor(Math.min(shardCount, MAXIMUM_SHARDS));
+        this.shards = new CustomHashMap[shardsAmount];
+        for (int i = 0; i < shardsAmount; i++) {
+            shards[i] = new CustomHashMap<>();
+        }
+        this.shardShift = 32 - Integer.numberOfTrailingZeros(shardsAmount);
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (CustomHashMap<K, V> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (CustomHashMap<K, V> shard : shards) {
+            if (!shard.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return shardFor(key).containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (CustomHashMap<K, V> shard : shards) {
+            if (shard.containsValue(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        return shardFor(key).get(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return shardFor(key).put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return shardFor(key).remove(key);
+    }
+
+    /**
+     * @param m map for insert
+     * @throws NullPointerException if m == null
+     */
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> insertionEntry : m.entrySet()) {
+            this.put(insertionEntry.getKey(), insertionEntry.getValue());
+        }
+    }
+
+    /**
+     * Inserts all entries of the map with parallelPutAll(K[], V[]).
+     *
+     * @param m map for insert
+     * @throws NullPointerException if m == null
+     */
+
+    public void parallelPutAll(Map<? extends K, ? extends V> m) {
+        parallelPutAll(m.entrySet());
+    }
+
+    /**
+     * Inserts all entries with parallelPutAll(K[], V[]), later entries of the collection win.
+     *
+     * @param entries entries for insert
+     * @throws NullPointerException if entries == null
+     */
+
+    public void parallelPutAll(Collection<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        Object[] array = entries.toArray();
+        Object[] keys = new Object[array.length];
+        Object[] values = new Object[array.length];
+        runInParallel(array.length, TASK_SIZE, i -> {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) array[i];
+            keys[i] = entry.getKey();
+            values[i] = entry.getValue();
+        });
+        parallelPutAll((K[]) keys, (V[]) values);
+    }
+
+    /**
+     * Puts keys[i] to values[i] for every i. Chunks of the input are partitioned by shard in
+     * parallel with a counting sort, then every shard puts its keys in input order in its own task,
+     * so a later duplicate key wins like with sequential puts.
+     *
+     * @throws IllegalArgumentException if arrays have different lengths
+     * @throws NullPointerException     if keys == null or values == null
+     */
+
+    public void parallelPutAll(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Keys and values have different lengths: " + keys.length + ", " + values.length);
+        }
+        int length = keys.length;
+        int chunkCount = Math.max(1, Math.min(pool.getParallelism() * 4, length / TASK_SIZE));
+        int chunkSize = (length + chunkCount - 1) / chunkCount;
+        int[] shardOf = new int[length];
+        int[][] counts = new int[chunkCount][shards.length];
+        runInParallel(chunkCount, 1, chunk -> {
+            int[] chunkCounts = counts[chunk];
+            for (int i = chunk * chunkSize, to = Math.min(length, i + chunkSize); i < to; i++) {
+                int shard = shardIndex(keys[i]);
+                shardOf[i] = shard;
+                chunkCounts[shard]++;
+            }
+        });
+
+        int[] shardStarts = new int[shards.length + 1];
+        int position = 0;
+        for (int shard = 0; shard < shards.length; shard++) {
+            shardStarts[shard] = position;
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                int count = counts[chunk][shard];
+                counts[chunk][shard] = position;
+                position += count;
+            }
+        }
+        shardStarts[shards.length] = position;
+
+        int[] order = new int[length];
+        runInParallel(chunkCount, 1, chunk -> {
+            int[] chunkPositions = counts[chunk];
+            for (int i = chunk * chunkSize, to = Math.min(length, i + chunkSize); i < to; i++) {
+                order[chunkPositions[shardOf[i]]++] = i;
+            }
+        });
+
+        runInParallel(shards.length, 1, shard -> {
+            int from = shardStarts[shard];
+            int to = shardStarts[shard + 1];
+            CustomHashMap<K, V> target = shards[shard];
+            if (target.isEmpty() && to - from > 0) {
+                target = new CustomHashMap<>((int) Math.min((to - from) / CustomHashMap.DEFAULT_LOAD_FACTOR + 1, CustomHashMap.MAXIMUM_CAPACITY));
+                shards[shard] = target;
+            }
+            for (int i = from; i < to; i++) {
+                target.put(keys[order[i]], values[order[i]]);
+            }
+        });
+    }
+
+    /**
+     * Performs the action for every entry, shards are processed in parallel,
+     * so the action must be thread safe.
+     *
+     * @throws NullPointerException if action == null
+     */
+
+    public void parallelForEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        runInParallel(shards.length, 1, shard -> shards[shard].forEach(action));
+    }
+
+    /**
+     * Transforms every entry and combines non-null results with the reducer, shards are
+     * processed in parallel.
+     *
+     * @return combined result or null if no entry gives a non-null result
+     * @throws NullPointerException if transformer == null or reducer == null
+     */
+
+    public <U> U parallelReduce(BiFunction<? super K, ? super V, ? extends U> transformer, BinaryOperator<U> reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        Object[] results = new Object[shards.length];
+        runInParallel(shards.length, 1, shard -> {
+            U result = null;
+            for (Map.Entry<K, V> entry : shards[shard].entrySet()) {
+                U value = transformer.apply(entry.getKey(), entry.getValue());
+                if (value != null) {
+                    result = result == null ? value : reducer.apply(result, value);
+                }
+            }
+            results[shard] = result;
+        });
+        U result = null;
+        for (Object shardResult : results) {
+            if (shardResult != null) {
+                result = result == null ? (U) shardResult : reducer.apply(result, (U) shardResult);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        for (CustomHashMap<K, V> shard : shards) {
+            shard.clear();
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new ValueCollection();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    private static int powerOfTwoFor(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    private int shardIndex(Object key) {
+        if (shardShift == 32) {
+            return 0;
+        }
+        int h = Objects.hashCode(key);
+        return ((h ^ (h >>> 16)) * GOLDEN_RATIO) >>> shardShift;
+    }
+
+    private CustomHashMap<K, V> shardFor(Object key) {
+        return shards[shardIndex(key)];
+    }
+
+    /**
+     * Runs the action for every index of [0, count) on the pool and waits for it.
+     */
+
+    private void runInParallel(int count, int taskSize, IntConsumer action) {
+        pool.invoke(new RangeTask(0, count, taskSize, action));
+    }
+
+    /**
+     * Splits a range of indexes in halves until it is not bigger than taskSize.
+     */
+
+    private static final class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int taskSize;
+        private final IntConsumer action;
+
+        RangeTask(int from, int to, int taskSize, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.taskSize = taskSize;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= taskSize) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, taskSize, action), new RangeTask(middle, to, taskSize, action));
+        }
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        public int size() {
+            return ShardedHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return ShardedHashMap.this.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return shardFor(o).keySet().remove(o);
+        }
+    }
+
+    private class ValueCollection extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return ShardedHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return ShardedHashMap.this.containsValue(o);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return ShardedHashMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Map.Entry && shardFor(((Map.Entry<?, ?>) o).getKey()).entrySet().contains(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o instanceof Map.Entry && shardFor(((Map.Entry<?, ?>) o).getKey()).entrySet().remove(o);
+        }
+    }
+
+    /**
+     * Walks entries of shards one after another, removal is done by the iterator of the shard.
+     */
+
+    private abstract class ShardIterator<E> implements Iterator<E> {
+        private int nextShard = 0;
+        private Iterator<Entry<K, V>> iterator = Collections.emptyIterator();
+        private Iterator<Entry<K, V>> lastIterator;
+
+        @Override
+        public boolean hasNext() {
+            while (!iterator.hasNext()) {
+                if (nextShard == shards.length) {
+                    return false;
+                }
+                iterator = shards[nextShard++].entrySet().iterator();
+            }
+            return true;
+        }
+
+        Entry<K, V> nextEntry() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastIterator = iterator;
+            return iterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (lastIterator == null) {
+                throw new IllegalStateException();
+            }
+            lastIterator.remove();
+            lastIterator = null;
+        }
+    }
+
+    private class KeyIterator extends ShardIterator<K> {
+        @Override
+        public K next() {
+            return nextEntry().getKey();
+        }
+    }
+
+    private class ValueIterator extends ShardIterator<V> {
+        @Override
+        public V next() {
+            return nextEntry().getValue();
+        }
+    }
+
+    private class EntryIterator extends ShardIterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            return nextEntry();
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package ru.epam.training;
+
+/**
+ * SipHash-2-4 keyed hash function. Without the 128-bit key an attacker can not
+ * find keys which collide, so it protects hash tables from flooding with crafted keys.
+ * Strings are hashed as their UTF-16 chars in little-endian order.
+ */
+
+final class SipHash {
+
+    private SipHash() {
+    }
+
+    static long hash(long k0, long k1, CharSequence s) {
+        long v0 = k0 ^ 0x736F6D6570736575L;
+        long v1 = k1 ^ 0x646F72616E646F6DL;
+        long v2 = k0 ^ 0x6C7967656E657261L;
+        long v3 = k1 ^ 0x7465646279746573L;
+        int length = s.length();
+        int fullWords = length / 4;
+        for (int word = 0; word <= fullWords; word++) {
+            long m;
+            int i = word * 4;
+            if (word < fullWords) {
+                m = s.charAt(i) | (long) s.charAt(i + 1) << 16
+                        | (long) s.charAt(i + 2) << 32 | (long) s.charAt(i + 3) << 48;
+            } else {
+                m = (long) (length * 2) << 56;
+                for (int shift = 0; i < length; i++, shift += 16) {
+                    m |= (long) s.charAt(i) << shift;
+                }
+            }
+            v3 ^= m;
+            for (int round = 0; round < 2; round++) {
+                v0 += v1;
+                v1 = Long.rotateLeft(v1, 13) ^ v0;
+                v0 = Long.rotateLeft(v0, 32);
+                v2 += v3;
+                v3 = Long.rotateLeft(v3, 16) ^ v2;
+                v0 += v3;
+                v3 = Long.rotateLeft(v3, 21) ^ v0;
+                v2 += v1;
+                v1 = Long.rotateLeft(v1, 17) ^ v2;
+                v2 = Long.rotateLeft(v2, 32);
+            }
+            v0 ^= m;
+        }
+        v2 ^= 0xFF;
+        for (int round = 0; round < 4; round++) {
+            v0 += v1;
+            v1 = Long.rotateLeft(v1, 13) ^ v0;
+            v0 = Long.rotateLeft(v0, 32);
+            v2 += v3;
+            v3 = Long.rotateLeft(v3, 16) ^ v2;
+            v0 += v3;
+            v3 = Long.rotateLeft(v3, 21) ^ v0;
+            v2 += v1;
+            v1 = Long.rotateLeft(v1, 17) ^ v2;
+            v2 = Long.rotateLeft(v2, 32);
+        }
+        return v0 ^ v1 ^ v2 ^ v3;
+    }
+}
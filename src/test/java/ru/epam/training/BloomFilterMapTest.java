@@ -0,0 +1,145 @@
+package ru.epam.training;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BloomFilterMapTest {
+
+    /**
+     * Tree map which counts lookups reaching it and iterations of its keys by rebuilds of the filter.
+     */
+
+    private static class CountingTreeMap extends CustomTreeMap<Integer, String> {
+        int lookups;
+        int keySetCalls;
+
+        @Override
+        public Set<Integer> keySet() {
+            keySetCalls++;
+            return super.keySet();
+        }
+
+        @Override
+        public String get(Object key) {
+            lookups++;
+            return super.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            lookups++;
+            return super.containsKey(key);
+        }
+    }
+
+    @Test
+    public void testThatAbsentKeysRarelyReachMap() {
+        CountingTreeMap treeMap = new CountingTreeMap();
+        Map<Integer, String> m = new BloomFilterMap<>(treeMap, 10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            m.put(i * 2, "ss" + i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertEquals("ss" + i, m.get(i * 2));
+        }
+        treeMap.lookups = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertNull(m.get(i * 2 + 1));
+            assertFalse(m.containsKey(-i - 1));
+        }
+        assertTrue("lookups: " + treeMap.lookups, treeMap.lookups < 600);
+    }
+
+    @Test
+    public void testThatMapWorksAsWrappedMap() {
+        Map<Integer, String> m = new BloomFilterMap<>(new CustomHashMap<>());
+        Map<Integer, String> hashMap = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            Integer key = random.nextInt(2000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(hashMap.put(key, "ss" + i), m.put(key, "ss" + i));
+                    break;
+                case 1:
+                    assertEquals(hashMap.remove(key), m.remove(key));
+                    break;
+                default:
+                    assertEquals(hashMap.get(key), m.get(key));
+                    assertEquals(hashMap.containsKey(key), m.containsKey(key));
+            }
+        }
+        assertEquals(hashMap, new HashMap<>(m));
+        m.put(null, "null");
+        assertEquals("null", m.get(null));
+    }
+
+    @Test
+    public void testThatFilterGrowsAndIsRebuiltAfterRemovals() {
+        BloomFilterMap<Integer, String> m = new BloomFilterMap<>(new CustomHashMap<>(), 16, 0.01);
+        for (int i = 0; i < 100000; i++) {
+            m.put(i, "ss");
+        }
+        int falsePositives = 0;
+        for (int i = 100000; i < 200000; i++) {
+            if (m.mightContain(i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 3000);
+        for (int i = 0; i < 100000; i++) {
+            m.remove(i);
+        }
+        falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (m.mightContain(i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 3000);
+        assertTrue(m.isEmpty());
+    }
+
+    @Test
+    public void testThatOverwritesAndAbsentRemovalsDoNotRebuildFilter() {
+        CountingTreeMap treeMap = new CountingTreeMap();
+        BloomFilterMap<Integer, String> m = new BloomFilterMap<>(treeMap, 1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            m.put(i, "ss" + i);
+        }
+        treeMap.keySetCalls = 0;
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 1000; i++) {
+                m.put(i, "ss" + round);
+                assertEquals("ss" + round, m.get(i));
+                assertNull(m.remove(i + 1000));
+            }
+        }
+        assertEquals(0, treeMap.keySetCalls);
+        for (int i = 0; i < 300; i++) {
+            m.remove(i);
+        }
+        assertEquals(1, treeMap.keySetCalls);
+        assertEquals(700, m.size());
+    }
+
+    @Test
+    public void testThatExistingKeysAreAddedToFilter() {
+        Map<Integer, String> treeMap = new CustomTreeMap<>();
+        treeMap.put(1, "ss1");
+        Map<Integer, String> m = new BloomFilterMap<>(treeMap);
+        assertEquals("ss1", m.get(1));
+        m.keySet().remove(1);
+        assertNull(m.get(1));
+        m.clear();
+        assertFalse(m.containsKey(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatConstructorThrowsIAEForWrongRate() {
+        new BloomFilterMap<>(new CustomHashMap<>(), 16, 1);
+    }
+}
@@ -0,0 +1,176 @@
+package ru.epam.training;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void testThatLeastRecentlyUsedEntryIsEvicted() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(3);
+        cache.put(1, "ss1");
+        cache.put(2, "ss2");
+        cache.put(3, "ss3");
+        cache.get(1);
+        cache.put(2, "ss22");
+        cache.put(4, "ss4");
+        assertEquals(3, cache.size());
+        assertFalse(cache.containsKey(3));
+        assertTrue(cache.containsKey(1));
+        assertEquals("ss22", cache.get(2));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void testThatCountersWorkWell() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10);
+        cache.put(1, null);
+        assertNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("default", cache.getOrDefault(3, "default"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    public void testThatSizeNeverExceedsMaximumSize() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(100);
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(1000);
+            switch (random.nextInt(4)) {
+                case 0:
+                    cache.remove(key);
+                    break;
+                case 1:
+                    cache.merge(key, 1, Integer::sum);
+                    break;
+                default:
+                    cache.put(key, i);
+            }
+            assertTrue(cache.size() <= 100);
+        }
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void testThatEvictionOrderSurvivesTreeifiedBuckets() {
+        BoundedCache<SameHashKey, Integer> cache = new BoundedCache<>(20);
+        for (int i = 0; i < 20; i++) {
+            cache.put(new SameHashKey(i), i);
+        }
+        for (int i = 0; i < 20; i += 2) {
+            assertEquals(i, (int) cache.get(new SameHashKey(i)));
+        }
+        for (int i = 20; i < 30; i++) {
+            cache.put(new SameHashKey(i), i);
+        }
+        for (int i = 0; i < 30; i++) {
+            assertEquals(i % 2 == 0 || i >= 20, cache.containsKey(new SameHashKey(i)));
+        }
+        Iterator<SameHashKey> iterator = cache.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().id < 10) {
+                iterator.remove();
+            }
+        }
+        for (int i = 30; i < 45; i++) {
+            cache.put(new SameHashKey(i), i);
+        }
+        assertEquals(20, cache.size());
+        for (int i = 30; i < 45; i++) {
+            assertTrue(cache.containsKey(new SameHashKey(i)));
+        }
+    }
+
+    @Test
+    public void testThatTinyLfuKeepsFrequentEntriesDuringScan() {
+        BoundedCache<Integer, Integer> lru = new BoundedCache<>(100, BoundedCache.Policy.LRU);
+        BoundedCache<Integer, Integer> tinyLfu = new BoundedCache<>(100, BoundedCache.Policy.TINY_LFU);
+        for (BoundedCache<Integer, Integer> cache : Arrays.asList(lru, tinyLfu)) {
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < 50; i++) {
+                    cache.computeIfAbsent(i, key -> key);
+                    cache.get(i);
+                }
+            }
+            for (int i = 1000; i < 2000; i++) {
+                cache.put(i, i);
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            assertFalse(lru.containsKey(i));
+            assertTrue(tinyLfu.containsKey(i));
+        }
+        assertEquals(100, tinyLfu.size());
+    }
+
+    @Test
+    public void testThatBatchOperationsCountAndEvictLikeLoops() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(100);
+        Integer[] keys = new Integer[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        cache.putAll(keys, keys);
+        assertEquals(100, cache.size());
+        assertEquals(900, cache.evictionCount());
+        List<Integer> found = new ArrayList<>();
+        cache.getAll(keys, (key, value) -> {
+            if (value != null) {
+                found.add(value);
+            }
+        });
+        assertEquals(100, found.size());
+        assertEquals(100, cache.hitCount());
+        assertEquals(900, cache.missCount());
+        cache.getAll(Arrays.asList(999, -1), (key, value) -> {
+        });
+        assertEquals(101, cache.hitCount());
+        assertEquals(901, cache.missCount());
+    }
+
+    @Test
+    public void testThatClearEmptiesCache() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(2);
+        cache.put(1, "ss1");
+        cache.put(2, "ss2");
+        cache.clear();
+        cache.put(3, "ss3");
+        cache.put(4, "ss4");
+        cache.put(5, "ss5");
+        assertEquals(new HashSet<>(Arrays.asList(4, 5)), new HashSet<>(cache.keySet()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatConstructorThrowsIAEForWrongMaximumSize() {
+        new BoundedCache<Integer, String>(0);
+    }
+
+    private static final class SameHashKey implements Comparable<SameHashKey> {
+        private final int id;
+
+        SameHashKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(SameHashKey o) {
+            return Integer.compare(id, o.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SameHashKey && ((SameHashKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 7;
+        }
+    }
+}
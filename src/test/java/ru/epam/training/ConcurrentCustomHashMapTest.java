@@ -0,0 +1,160 @@
+package ru.epam.training;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentCustomHashMapTest {
+
+    private static final int THREADS = 8;
+
+    private ConcurrentMap<Integer, String> m;
+
+    @Before
+    public void init() {
+        m = new ConcurrentCustomHashMap<>();
+    }
+
+    @Test
+    public void testThatWeCanPutGetAndRemove() {
+        assertNull(m.put(1, "ss1"));
+        assertEquals("ss1", m.put(1, "ss2"));
+        assertEquals("ss2", m.get(1));
+        assertTrue(m.containsKey(1));
+        assertTrue(m.containsValue("ss2"));
+        assertEquals("ss2", m.remove(1));
+        assertTrue(m.isEmpty());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testThatPutThrowsNPEForNullKey() {
+        m.put(null, "ss");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testThatPutThrowsNPEForNullValue() {
+        m.put(1, null);
+    }
+
+    @Test
+    public void testThatConditionalMethodsWorkWell() {
+        assertNull(m.putIfAbsent(1, "ss1"));
+        assertEquals("ss1", m.putIfAbsent(1, "ss2"));
+        assertFalse(m.replace(1, "ss2", "ss3"));
+        assertTrue(m.replace(1, "ss1", "ss3"));
+        assertEquals("ss3", m.replace(1, "ss4"));
+        assertNull(m.replace(2, "ss4"));
+        assertFalse(m.remove(1, "ss3"));
+        assertTrue(m.remove(1, "ss4"));
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testThatComputeMethodsWorkWell() {
+        assertEquals("a", m.computeIfAbsent(1, key -> "a"));
+        assertEquals("a", m.computeIfAbsent(1, key -> "b"));
+        assertEquals("ab", m.merge(1, "b", String::concat));
+        assertEquals("c", m.merge(2, "c", String::concat));
+        assertEquals("ab1", m.computeIfPresent(1, (key, value) -> value + key));
+        assertNull(m.computeIfPresent(3, (key, value) -> value + key));
+        assertNull(m.compute(1, (key, value) -> null));
+        assertFalse(m.containsKey(1));
+        assertEquals(1, m.size());
+    }
+
+    @Test
+    public void testThatMapGrowsAndIteratesAllEntries() {
+        int putAmount = 10000;
+        for (int i = 0; i < putAmount; i++) {
+            m.put(i, "ss" + i);
+        }
+        assertEquals(putAmount, m.size());
+        int iteratedAmount = 0;
+        for (Map.Entry<Integer, String> entry : m.entrySet()) {
+            assertEquals("ss" + entry.getKey(), entry.getValue());
+            iteratedAmount++;
+        }
+        assertEquals(putAmount, iteratedAmount);
+        Iterator<Integer> iterator = m.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(putAmount / 2, m.size());
+        m.clear();
+        assertTrue(m.isEmpty());
+    }
+
+    @Test
+    public void testThatConcurrentMergesAreNotLost() throws Exception {
+        ConcurrentMap<Integer, Integer> counters = new ConcurrentCustomHashMap<>(16, 0.75f, THREADS);
+        int increments = 20000;
+        runConcurrently(thread -> {
+            for (int i = 0; i < increments; i++) {
+                counters.merge(i % 100, 1, Integer::sum);
+            }
+        });
+        assertEquals(100, counters.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(THREADS * increments / 100, (int) counters.get(i));
+        }
+    }
+
+    @Test
+    public void testThatComputeIfAbsentCallsFunctionOncePerKey() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        int keys = 5000;
+        runConcurrently(thread -> {
+            for (int i = 0; i < keys; i++) {
+                m.computeIfAbsent(i, key -> {
+                    calls.incrementAndGet();
+                    return "ss" + key;
+                });
+            }
+        });
+        assertEquals(keys, calls.get());
+        assertEquals(keys, m.size());
+    }
+
+    @Test
+    public void testThatReadersSeeConsistentValuesWhileWritersGrowTheMap() throws Exception {
+        int keys = 20000;
+        runConcurrently(thread -> {
+            for (int i = 0; i < keys; i++) {
+                if (thread % 2 == 0) {
+                    m.put(i, "ss" + i);
+                } else {
+                    String value = m.get(i);
+                    assertTrue(value == null || value.equals("ss" + i));
+                }
+            }
+        });
+        assertEquals(keys, m.size());
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> task.run(thread)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,157 @@
+package ru.epam.training;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of features of CustomHashMap which other maps of CustomHashMapTest do not have.
+ */
+
+public class CustomHashMapSpecificTest {
+
+    private final CustomHashMap<Integer, String> m = new CustomHashMap<>();
+
+    @Test
+    public void testThatWeCanCreateMapWithCapacityAndLoadFactor() {
+        Map<Integer, String> map = new CustomHashMap<>(1, 0.5f);
+        map.put(1, "ss1");
+        map.put(2, "ss2");
+        assertEquals("ss1", map.get(1));
+        assertEquals("ss2", map.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatConstructorThrowsIAEForNegativeCapacity() {
+        new CustomHashMap<Integer, String>(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatConstructorThrowsIAEForNotPositiveLoadFactor() {
+        new CustomHashMap<Integer, String>(16, 0);
+    }
+
+    @Test
+    public void testThatRandomizedHashingStoresStringsWithSameHashCode() {
+        Map<String, Integer> map = new CustomHashMap<>(16, 0.75f, true);
+        List<String> keys = Collections.singletonList("");
+        for (int i = 0; i < 12; i++) {
+            List<String> longerKeys = new ArrayList<>();
+            for (String key : keys) {
+                longerKeys.add(key + "Aa");
+                longerKeys.add(key + "BB");
+            }
+            keys = longerKeys;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(keys.get(0).hashCode(), keys.get(i).hashCode());
+            map.put(keys.get(i), i);
+        }
+        assertEquals(keys.size(), map.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i, (int) map.get(keys.get(i)));
+        }
+        assertNull(map.get("AaAa"));
+    }
+
+    @Test
+    public void testThatLookupOfComparableKeysWithSameHashCodeIsLogarithmic() {
+        Map<Object, String> map = new CustomHashMap<>();
+        int putAmount = 4096;
+        for (int i = 0; i < putAmount; i++) {
+            map.put(new CustomHashMapTest.CollidingKey(i), "ss" + i);
+        }
+        CustomHashMapTest.CollidingKey.equalsCalls = 0;
+        for (int i = 0; i < putAmount; i++) {
+            assertEquals("ss" + i, map.get(new CustomHashMapTest.CollidingKey(i)));
+        }
+        assertTrue(CustomHashMapTest.CollidingKey.equalsCalls <= putAmount);
+    }
+
+    @Test
+    public void testThatSpliteratorSplitsByBucketsAndIsSizedAtTheRoot() {
+        Map<Integer, String> map = new CustomHashMap<>();
+        int putAmount = 1000;
+        for (int i = 0; i < putAmount; i++) {
+            map.put(i * 3, "ss" + i);
+        }
+        Spliterator<Integer> spliterator = map.keySet().spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(putAmount, spliterator.estimateSize());
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        Set<Integer> splitKeys = new HashSet<>();
+        prefix.forEachRemaining(key -> assertTrue(splitKeys.add(key)));
+        int prefixAmount = splitKeys.size();
+        assertTrue(prefixAmount > 0 && prefixAmount < putAmount);
+        while (spliterator.tryAdvance(key -> assertTrue(splitKeys.add(key)))) {
+        }
+        assertEquals(putAmount, splitKeys.size());
+    }
+
+    @Test
+    public void testThatMergeCountsWords() {
+        Map<String, Integer> counters = new CustomHashMap<>();
+        String[] words = "a b a c b a d".split(" ");
+        for (String word : words) {
+            counters.merge(word, 1, Integer::sum);
+        }
+        assertEquals(3, (int) counters.get("a"));
+        assertEquals(2, (int) counters.get("b"));
+        assertEquals(1, (int) counters.get("c"));
+        assertNull(counters.merge("d", 1, (oldValue, value) -> null));
+        assertEquals(3, counters.size());
+    }
+
+    @Test
+    public void testThatMergeCalculatesHashCodeOnce() {
+        Map<Object, Integer> counters = new CustomHashMap<>();
+        counters.put(new CustomHashMapTest.CountingKey(1), 1);
+        CustomHashMapTest.CountingKey.hashCodeCalls = 0;
+        counters.merge(new CustomHashMapTest.CountingKey(1), 1, Integer::sum);
+        counters.computeIfAbsent(new CustomHashMapTest.CountingKey(2), key -> 1);
+        assertEquals(2, CustomHashMapTest.CountingKey.hashCodeCalls);
+        assertEquals(2, (int) counters.get(new CustomHashMapTest.CountingKey(1)));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testThatComputeIfAbsentThrowsCMEIfFunctionModifiesMap() {
+        m.computeIfAbsent(1, key -> m.put(2, "ss2"));
+    }
+
+    @Test
+    public void testThatBatchPutAllAndGetAllWorkLikeLoops() {
+        m.put(-1, "old");
+        Integer[] keys = new Integer[3000];
+        String[] values = new String[3000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i % 2000 - 1;
+            values[i] = "ss" + i;
+        }
+        m.putAll(keys, values);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            expected.put(keys[i], values[i]);
+        }
+        assertEquals(expected, new HashMap<>(m));
+
+        Map<Integer, String> found = new HashMap<>();
+        Integer[] lookups = {5, 100000, -1, 1998, -2};
+        m.getAll(lookups, found::put);
+        Map<Integer, String> expectedFound = new HashMap<>();
+        for (Integer key : lookups) {
+            expectedFound.put(key, expected.get(key));
+        }
+        assertEquals(expectedFound, found);
+        found.clear();
+        m.getAll(Arrays.asList(7, 8), found::put);
+        assertEquals(2, found.size());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testThatGetAllThrowsCMEIfConsumerModifiesMap() {
+        m.getAll(new Integer[]{1, 2}, (key, value) -> m.put(key, "ss"));
+    }
+}
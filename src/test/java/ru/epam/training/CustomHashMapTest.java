@@ -3,8 +3,12 @@ package ru.epam.training;
 import org.junit.Before;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -12,12 +16,29 @@ import static org.hamcrest.core.IsNull.notNullValue;
 import static org.junit.Assert.*;
 
 @FixMethodOrder
+@RunWith(Parameterized.class)
 public class CustomHashMapTest {
+    private final Supplier<Map> mapFactory;
+
     private Map<Integer, String> m;
 
+    public CustomHashMapTest(String name, Supplier<Map> mapFactory) {
+        this.mapFactory = mapFactory;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+                {"CustomHashMap", (Supplier<Map>) CustomHashMap::new},
+                {"randomized CustomHashMap", (Supplier<Map>) () -> new CustomHashMap<>(16, 0.75f, true)},
+                {"RobinHoodHashMap", (Supplier<Map>) RobinHoodHashMap::new},
+                {"CompactHashMap", (Supplier<Map>) CompactHashMap::new}
+        });
+    }
+
     @Before
     public void init() {
-        m = new CustomHashMap<>();
+        m = newMap();
     }
 
     @Test
@@ -293,6 +314,7 @@ public class CustomHashMapTest {
         Iterator iterator = setOfKeys.iterator();
         int leftInSet = putAmount - removeAmount;
         for (int i = 0; i < removeAmount; i++) {
+            iterator.next();
             iterator.remove();
         }
         assertTrue(leftInSet == m.size());
@@ -407,6 +429,7 @@ public class CustomHashMapTest {
         Iterator iterator = entries.iterator();
         int leftInSet = putAmount - removeAmount;
         for (int i = 0; i < removeAmount; i++) {
+            iterator.next();
             iterator.remove();
         }
         assertTrue(leftInSet == m.size());
@@ -438,4 +461,274 @@ public class CustomHashMapTest {
         m.put(null, value);
         assertEquals(value, m.get(null));
     }
+
+    @Test
+    public void testThatMapGrowsAndKeepsAllEntries() {
+        int putAmount = 10000;
+        for (int i = 0; i < putAmount; i++) {
+            m.put(i, "ss" + i);
+        }
+        assertEquals(putAmount, m.size());
+        for (int i = 0; i < putAmount; i++) {
+            assertEquals("ss" + i, m.get(i));
+        }
+        assertEquals(putAmount, m.keySet().size());
+        assertTrue(m.containsValue("ss0"));
+    }
+
+    @Test
+    public void testThatRemoveAndPutWorkWhileRehashIsInProgress() {
+        int putAmount = 2000;
+        int removeAmount = 0;
+        for (int i = 0; i < putAmount; i++) {
+            m.put(i, "ss" + i);
+            if (i % 3 == 0) {
+                assertEquals("ss" + (i / 3), m.remove(i / 3));
+                removeAmount++;
+            }
+        }
+        assertEquals(putAmount - removeAmount, m.size());
+        int iteratedAmount = 0;
+        for (Map.Entry<Integer, String> entry : m.entrySet()) {
+            assertEquals("ss" + entry.getKey(), entry.getValue());
+            iteratedAmount++;
+        }
+        assertEquals(m.size(), iteratedAmount);
+    }
+
+    @Test
+    public void testThatRandomPutsAndRemovesGiveSameResultAsHashMap() {
+        HashMap<Integer, String> testingMap = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(3000) * 16;
+            if (random.nextInt(3) == 0) {
+                assertEquals(testingMap.remove(key), m.remove(key));
+            } else {
+                assertEquals(testingMap.put(key, "ss" + i), m.put(key, "ss" + i));
+            }
+        }
+        assertEquals(testingMap.size(), m.size());
+        for (Map.Entry<Integer, String> mustBeIn : testingMap.entrySet()) {
+            assertEquals(mustBeIn.getValue(), m.get(mustBeIn.getKey()));
+        }
+    }
+
+    @Test
+    public void testThatKeysWithSameHashCodeCanBePutGotAndRemoved() {
+        Map<Object, String> map = newMap();
+        int putAmount = 500;
+        for (int i = 0; i < putAmount; i++) {
+            map.put(new CollidingKey(i), "ss" + i);
+            map.put(new NotComparableCollidingKey(i), "nc" + i);
+        }
+        assertEquals(putAmount * 2, map.size());
+        for (int i = 0; i < putAmount; i++) {
+            assertEquals("ss" + i, map.get(new CollidingKey(i)));
+            assertEquals("nc" + i, map.get(new NotComparableCollidingKey(i)));
+        }
+        for (int i = 0; i < putAmount; i += 2) {
+            assertEquals("ss" + i, map.remove(new CollidingKey(i)));
+            assertEquals("nc" + i, map.remove(new NotComparableCollidingKey(i)));
+        }
+        assertEquals(putAmount, map.size());
+        for (int i = 0; i < putAmount; i++) {
+            assertEquals(i % 2 == 0 ? null : "ss" + i, map.get(new CollidingKey(i)));
+            assertEquals(i % 2 == 0 ? null : "nc" + i, map.get(new NotComparableCollidingKey(i)));
+        }
+        for (int i = 1; i < putAmount; i += 2) {
+            map.remove(new CollidingKey(i));
+            map.remove(new NotComparableCollidingKey(i));
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testThatHashCodeIsCalculatedOncePerOperationEvenIfMapGrows() {
+        Map<Object, String> map = newMap();
+        CountingKey.hashCodeCalls = 0;
+        int putAmount = 1000;
+        for (int i = 0; i < putAmount; i++) {
+            map.put(new CountingKey(i), "ss" + i);
+        }
+        assertEquals(putAmount, CountingKey.hashCodeCalls);
+        assertEquals("ss7", map.get(new CountingKey(7)));
+        assertEquals(putAmount + 1, CountingKey.hashCodeCalls);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testThatIteratorFailsIfMapIsModified() {
+        m.put(1, "ss1");
+        m.put(2, "ss2");
+        Iterator<Integer> iterator = m.keySet().iterator();
+        iterator.next();
+        m.put(3, "ss3");
+        iterator.next();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThatIteratorRemoveThrowsISEWithoutNext() {
+        m.put(1, "ss1");
+        m.keySet().iterator().remove();
+    }
+
+    @Test
+    public void testThatIteratorCanRemoveEveryOtherEntryWhileMapIsRehashed() {
+        int putAmount = 1600;
+        for (int i = 0; i < putAmount; i++) {
+            m.put(i, "ss" + i);
+        }
+        Iterator<Map.Entry<Integer, String>> iterator = m.entrySet().iterator();
+        Set<Integer> iteratedKeys = new HashSet<>();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            assertTrue(iteratedKeys.add(entry.getKey()));
+            if (entry.getKey() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(putAmount, iteratedKeys.size());
+        assertEquals(putAmount / 2, m.size());
+        for (int i = 0; i < putAmount; i++) {
+            assertEquals(i % 2 == 0 ? null : "ss" + i, m.get(i));
+        }
+    }
+
+    @Test
+    public void testThatIteratorCanRemoveEntriesWithSameHashCode() {
+        Map<Object, String> map = newMap();
+        int putAmount = 100;
+        for (int i = 0; i < putAmount; i++) {
+            map.put(new CollidingKey(i), "ss" + i);
+        }
+        Iterator<Object> iterator = map.keySet().iterator();
+        int iteratedAmount = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            iteratedAmount++;
+        }
+        assertEquals(putAmount, iteratedAmount);
+        assertTrue(map.isEmpty());
+        assertNull(map.get(new CollidingKey(1)));
+    }
+
+    @Test
+    public void testThatViewsCanBeClearedThroughIterator() {
+        for (int i = 0; i < 100; i++) {
+            m.put(i, "ss" + i);
+        }
+        m.values().clear();
+        assertTrue(m.isEmpty());
+        assertFalse(m.keySet().iterator().hasNext());
+    }
+
+    @Test
+    public void testThatParallelStreamsOfViewsSeeAllElements() {
+        int putAmount = 20000;
+        for (int i = 0; i < putAmount; i++) {
+            m.put(i, "ss" + i);
+        }
+        assertEquals((long) putAmount * (putAmount - 1) / 2,
+                m.keySet().parallelStream().mapToLong(Integer::longValue).sum());
+        assertEquals(putAmount, m.values().parallelStream().filter(value -> value.startsWith("ss")).count());
+        assertEquals(putAmount, m.entrySet().parallelStream()
+                .filter(entry -> entry.getValue().equals("ss" + entry.getKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet()).size());
+    }
+
+    @Test
+    public void testThatComputeMethodsWorkWell() {
+        assertEquals("a", m.computeIfAbsent(1, key -> "a"));
+        assertEquals("a", m.computeIfAbsent(1, key -> "b"));
+        assertNull(m.computeIfAbsent(2, key -> null));
+        assertFalse(m.containsKey(2));
+        assertEquals("a1", m.computeIfPresent(1, (key, value) -> value + key));
+        assertNull(m.computeIfPresent(2, (key, value) -> value + key));
+        assertEquals("c", m.compute(3, (key, value) -> value == null ? "c" : value + "c"));
+        assertEquals("cc", m.compute(3, (key, value) -> value == null ? "c" : value + "c"));
+        assertNull(m.compute(3, (key, value) -> null));
+        assertFalse(m.containsKey(3));
+        assertEquals(1, m.size());
+    }
+
+    @Test
+    public void testThatPutIfAbsentReplacesOnlyAbsentOrNullValues() {
+        m.put(1, null);
+        assertNull(m.putIfAbsent(1, "ss1"));
+        assertEquals("ss1", m.putIfAbsent(1, "ss2"));
+        assertNull(m.putIfAbsent(2, "ss2"));
+        assertEquals("ss2", m.get(2));
+        assertEquals("none", m.getOrDefault(3, "none"));
+        m.put(3, null);
+        assertNull(m.getOrDefault(3, "none"));
+    }
+
+    private <T> Map<T, String> newMap() {
+        return mapFactory.get();
+    }
+
+    private static class NotComparableCollidingKey {
+        final int id;
+
+        NotComparableCollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NotComparableCollidingKey && ((NotComparableCollidingKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+
+    static class CollidingKey implements Comparable<CollidingKey> {
+        static int equalsCalls;
+        final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(CollidingKey o) {
+            return Integer.compare(id, o.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            equalsCalls++;
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+
+    static class CountingKey {
+        static int hashCodeCalls;
+        final int id;
+
+        CountingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CountingKey && ((CountingKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            hashCodeCalls++;
+            return id;
+        }
+    }
 }
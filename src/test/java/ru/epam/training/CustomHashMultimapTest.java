@@ -0,0 +1,159 @@
+package ru.epam.training;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class CustomHashMultimapTest {
+
+    private CustomHashMultimap<Integer, String> m;
+
+    @Before
+    public void init() {
+        m = new CustomHashMultimap<>();
+    }
+
+    @Test
+    public void testThatValuesGrowFromInlineToList() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            m.put(1, "ss" + i);
+            expected.add("ss" + i);
+            assertEquals(expected, new ArrayList<>(m.get(1)));
+            assertEquals(i + 1, m.size());
+        }
+        assertEquals(1, m.keySet().size());
+    }
+
+    @Test
+    public void testThatGetReturnsLiveView() {
+        Collection<String> values = m.get(1);
+        assertTrue(values.isEmpty());
+        m.put(1, "ss1");
+        assertEquals(1, values.size());
+        values.add("ss2");
+        assertTrue(m.containsEntry(1, "ss2"));
+        assertTrue(values.remove("ss1"));
+        assertEquals(Collections.singletonList("ss2"), new ArrayList<>(values));
+        assertEquals(1, m.size());
+    }
+
+    @Test
+    public void testThatPutAllAddsValuesAtOnce() {
+        m.put(1, "ss0");
+        assertTrue(m.putAll(1, Arrays.asList("ss1", "ss2")));
+        assertEquals(Arrays.asList("ss0", "ss1", "ss2"), new ArrayList<>(m.get(1)));
+        assertTrue(m.putAll(1, Arrays.asList("ss3", "ss4", "ss5")));
+        assertEquals(6, m.get(1).size());
+        assertFalse(m.putAll(2, Collections.emptyList()));
+        assertFalse(m.containsKey(2));
+        assertTrue(m.putAll(2, Collections.singletonList("ss")));
+        assertEquals(7, m.size());
+    }
+
+    @Test
+    public void testThatNullAndArrayLikeValuesAreKept() {
+        CustomHashMultimap<Integer, Object> multimap = new CustomHashMultimap<>();
+        Object[] array = {"ss1"};
+        multimap.put(1, null);
+        multimap.put(2, array);
+        multimap.put(3, new CustomArrayList<>());
+        assertEquals(Collections.singletonList(null), new ArrayList<>(multimap.get(1)));
+        assertSame(array, multimap.get(2).iterator().next());
+        assertEquals(1, multimap.get(3).size());
+        assertTrue(multimap.remove(1, null));
+        assertFalse(multimap.containsKey(1));
+    }
+
+    @Test
+    public void testThatRemoveShrinksValues() {
+        for (int i = 0; i < 6; i++) {
+            m.put(1, "ss" + i);
+        }
+        for (int i = 0; i < 6; i++) {
+            assertTrue(m.remove(1, "ss" + i));
+            assertFalse(m.remove(1, "ss" + i));
+            assertEquals(5 - i, m.get(1).size());
+        }
+        assertFalse(m.containsKey(1));
+        m.put(2, "ss1");
+        m.put(2, "ss2");
+        m.put(2, "ss3");
+        assertTrue(m.remove(2, "ss2"));
+        assertEquals(Arrays.asList("ss1", "ss3"), new ArrayList<>(m.get(2)));
+        assertFalse(m.isEmpty());
+    }
+
+    @Test
+    public void testThatRemoveAllReturnsRemovedValues() {
+        m.putAll(1, Arrays.asList("ss1", "ss2", "ss3"));
+        m.put(2, "ss");
+        assertEquals(Arrays.asList("ss1", "ss2", "ss3"), new ArrayList<>(m.removeAll(1)));
+        assertTrue(m.removeAll(1).isEmpty());
+        assertEquals(1, m.size());
+    }
+
+    @Test
+    public void testThatKeySetRemovalUpdatesSize() {
+        for (int i = 0; i < 10; i++) {
+            m.putAll(i, Arrays.asList("ss1", "ss2"));
+        }
+        Iterator<Integer> iterator = m.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertTrue(m.keySet().remove(1));
+        assertEquals(8, m.size());
+        m.clear();
+        assertTrue(m.isEmpty());
+    }
+
+    @Test
+    public void testThatClearOfViewRemovesKey() {
+        m.put(1, "ss1");
+        m.put(1, "ss2");
+        m.put(2, "ss3");
+        m.get(1).clear();
+        assertFalse(m.containsKey(1));
+        assertTrue(m.get(1).isEmpty());
+        assertEquals(1, m.size());
+    }
+
+    @Test
+    public void testThatIteratorOfViewRemovesValues() {
+        for (int size = 1; size <= 10; size++) {
+            m.clear();
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                m.put(1, "ss" + i % 3);
+                expected.add("ss" + i % 3);
+            }
+            expected.removeIf(value -> !value.equals("ss1"));
+            assertTrue(m.get(1).removeIf(value -> !value.equals("ss1")));
+            assertEquals(expected, new ArrayList<>(m.get(1)));
+            assertEquals(expected.size(), m.size());
+            assertEquals(!expected.isEmpty(), m.containsKey(1));
+            m.put(1, "ss0");
+            m.put(1, "ss2");
+            assertTrue(m.get(1).retainAll(Collections.singleton("ss2")));
+            assertEquals(Collections.singletonList("ss2"), new ArrayList<>(m.get(1)));
+            assertEquals(1, m.size());
+        }
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testThatIteratorOfListFailsFast() {
+        for (int i = 0; i < 10; i++) {
+            m.put(1, "ss" + i);
+        }
+        Iterator<String> iterator = m.get(1).iterator();
+        iterator.next();
+        m.remove(1, "ss5");
+        iterator.next();
+    }
+}
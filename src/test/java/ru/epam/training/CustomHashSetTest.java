@@ -0,0 +1,152 @@
+package ru.epam.training;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class CustomHashSetTest {
+
+    private static CustomHashSet<Integer> range(int from, int to) {
+        CustomHashSet<Integer> set = new CustomHashSet<>();
+        for (int i = from; i < to; i++) {
+            set.add(i);
+        }
+        return set;
+    }
+
+    private static Set<Integer> hashRange(int from, int to) {
+        return new HashSet<>(range(from, to));
+    }
+
+    @Test
+    public void testThatSetWorksAsHashSet() {
+        Set<Integer> s = new CustomHashSet<>();
+        Set<Integer> hashSet = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            Integer element = random.nextInt(1000);
+            if (random.nextBoolean()) {
+                assertEquals(hashSet.add(element), s.add(element));
+            } else {
+                assertEquals(hashSet.remove(element), s.remove(element));
+            }
+        }
+        assertEquals(hashSet, s);
+        assertEquals(s, hashSet);
+        assertEquals(hashSet.hashCode(), s.hashCode());
+        assertTrue(s.add(null));
+        assertFalse(s.add(null));
+        assertTrue(s.contains(null));
+    }
+
+    @Test
+    public void testThatAddAllMakesUnion() {
+        CustomHashSet<Integer> s = range(0, 1000);
+        assertTrue(s.addAll(range(500, 1500)));
+        assertEquals(hashRange(0, 1500), s);
+        assertFalse(s.addAll(hashRange(0, 100)));
+        assertTrue(s.addAll(Arrays.asList(-1, -1, -2)));
+        assertEquals(1502, s.size());
+        assertEquals(hashRange(0, 1500), CustomHashSet.union(range(0, 1000), hashRange(500, 1500)));
+    }
+
+    @Test
+    public void testThatRetainAllMakesIntersection() {
+        CustomHashSet<Integer> s = range(0, 1000);
+        assertTrue(s.retainAll(range(900, 950)));
+        assertEquals(hashRange(900, 950), s);
+        assertTrue(s.retainAll(hashRange(0, 920)));
+        assertEquals(hashRange(900, 920), s);
+        assertFalse(s.retainAll(hashRange(0, 10000)));
+        assertTrue(s.retainAll(Arrays.asList(905, 906, 5000)));
+        assertEquals(hashRange(905, 907), s);
+        assertEquals(hashRange(500, 1000), CustomHashSet.intersection(range(0, 1000), range(500, 2000)));
+        assertEquals(hashRange(500, 1000), CustomHashSet.intersection(hashRange(500, 2000), range(0, 1000)));
+    }
+
+    @Test
+    public void testThatRetainAllUsesContainsOfOtherSets() {
+        CustomHashSet<String> s = new CustomHashSet<>(Arrays.asList("a", "b", "c"));
+        Set<String> caseInsensitive = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        caseInsensitive.add("A");
+        assertTrue(s.retainAll(caseInsensitive));
+        assertEquals(Collections.singleton("a"), s);
+
+        CustomHashSet<String> strings = new CustomHashSet<>(Arrays.asList("a", "b", "c"));
+        Set<String> identities = Collections.newSetFromMap(new IdentityHashMap<>());
+        identities.add("a");
+        identities.add(new String("a"));
+        assertTrue(strings.retainAll(identities));
+        assertEquals(1, strings.size());
+        assertEquals(Collections.singleton("a"), strings);
+    }
+
+    @Test
+    public void testThatContainsAllUsesEqualityOfThisSet() {
+        CustomHashSet<String> s = new CustomHashSet<>(Collections.singleton("a"));
+        Set<String> identities = Collections.newSetFromMap(new IdentityHashMap<>());
+        identities.add("a");
+        identities.add(new String("a"));
+        assertTrue(s.containsAll(identities));
+
+        Set<String> caseInsensitive = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        caseInsensitive.add("a");
+        assertTrue(s.containsAll(caseInsensitive));
+        assertFalse(new CustomHashSet<>(Collections.singleton("A")).containsAll(caseInsensitive));
+    }
+
+    @Test
+    public void testThatRemoveAllMakesDifference() {
+        CustomHashSet<Integer> s = range(0, 1000);
+        assertTrue(s.removeAll(range(0, 100)));
+        assertTrue(s.removeAll(hashRange(900, 5000)));
+        assertFalse(s.removeAll(Arrays.asList(0, 1, 2)));
+        assertTrue(s.removeAll(Collections.singletonList(100)));
+        assertEquals(hashRange(101, 900), s);
+        assertTrue(s.removeAll(s));
+        assertTrue(s.isEmpty());
+    }
+
+    @Test
+    public void testThatContainsAllWorksWell() {
+        CustomHashSet<Integer> s = range(0, 1000);
+        assertTrue(s.containsAll(range(10, 20)));
+        assertTrue(s.containsAll(Arrays.asList(1, 1, 999)));
+        assertFalse(s.containsAll(range(990, 1010)));
+        assertFalse(s.containsAll(range(0, 1001)));
+        assertTrue(s.containsAll(s));
+    }
+
+    @Test
+    public void testThatIteratorRemovesElements() {
+        CustomHashSet<Integer> s = range(0, 100);
+        Iterator<Integer> iterator = s.iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            count++;
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(100, count);
+        assertEquals(50, s.size());
+        assertFalse(s.contains(2));
+        assertTrue(s.contains(3));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testThatIteratorFailsFast() {
+        CustomHashSet<Integer> s = range(0, 10);
+        Iterator<Integer> iterator = s.iterator();
+        iterator.next();
+        s.add(100);
+        iterator.next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatConstructorThrowsIAEForWrongLoadFactor() {
+        new CustomHashSet<>(16, 0);
+    }
+}
@@ -373,6 +373,172 @@ public class CustomTreeMapTest {
 
 
 
+    @Test
+    public void testThatTreeStaysBalancedForIncreasingKeys() {
+        CustomTreeMap<Integer, String> treeMap = new CustomTreeMap<>();
+        int size = 100000;
+        for (int i = 0; i < size; i++) {
+            treeMap.put(i, "ss" + i);
+        }
+        treeMap.checkInvariants();
+        assertTrue(treeMap.height() <= 1.45 * Math.log(size + 2) / Math.log(2));
+        for (int i = size - 1; i >= 0; i -= 2) {
+            assertEquals("ss" + i, treeMap.remove(i));
+        }
+        treeMap.checkInvariants();
+        assertEquals(size / 2, treeMap.size());
+        assertEquals("ss0", treeMap.get(0));
+    }
+
+    @Test
+    public void testThatTreeKeepsInvariantsAfterRandomOperations() {
+        CustomTreeMap<Integer, String> treeMap = new CustomTreeMap<>();
+        Map<Integer, String> expected = new TreeMap<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 20000; i++) {
+            Integer key = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), treeMap.remove(key));
+            } else {
+                assertEquals(expected.put(key, "ss" + i), treeMap.put(key, "ss" + i));
+            }
+            if (i % 1000 == 0) {
+                treeMap.checkInvariants();
+            }
+        }
+        treeMap.checkInvariants();
+        assertEquals(expected, new HashMap<>(treeMap));
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(treeMap.keySet()));
+    }
+
+    @Test
+    public void testThatReturnedValuesDoNotLeakBetweenCalls() {
+        fillTreeMap();
+        assertEquals("5", m.put(5, "55"));
+        assertThat(m.remove(100), is(nullValue()));
+        assertThat(m.put(100, "100"), is(nullValue()));
+        assertEquals("55", m.remove(5));
+        assertThat(m.remove(5), is(nullValue()));
+        ((CustomTreeMap<Integer, String>) m).checkInvariants();
+    }
+
+    @Test
+    public void testThatNavigationWorksAsTreeMap() {
+        fillTreeMap();
+        NavigableMap<Integer, String> treeMap = new TreeMap<>(m);
+        NavigableMap<Integer, String> navigableMap = (NavigableMap<Integer, String>) m;
+        for (int key = -5; key < 100; key++) {
+            assertEquals(treeMap.floorEntry(key), navigableMap.floorEntry(key));
+            assertEquals(treeMap.ceilingKey(key), navigableMap.ceilingKey(key));
+            assertEquals(treeMap.lowerKey(key), navigableMap.lowerKey(key));
+            assertEquals(treeMap.higherEntry(key), navigableMap.higherEntry(key));
+        }
+        assertEquals(Integer.valueOf(0), navigableMap.firstKey());
+        assertEquals(Integer.valueOf(90), navigableMap.lastKey());
+        assertEquals(treeMap.pollFirstEntry(), navigableMap.pollFirstEntry());
+        assertEquals(treeMap.pollLastEntry(), navigableMap.pollLastEntry());
+        assertEquals(treeMap, new TreeMap<>(m));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testThatFirstKeyThrowsNSEEOnEmptyMap() {
+        ((NavigableMap<Integer, String>) m).firstKey();
+    }
+
+    @Test
+    public void testThatRangeViewsWorkAsTreeMap() {
+        NavigableMap<Integer, String> navigableMap = (NavigableMap<Integer, String>) m;
+        NavigableMap<Integer, String> treeMap = new TreeMap<>();
+        for (int i = 0; i < 200; i += 2) {
+            navigableMap.put(i, "ss" + i);
+            treeMap.put(i, "ss" + i);
+        }
+        assertRangeEquals(treeMap.subMap(10, true, 50, false), navigableMap.subMap(10, true, 50, false));
+        assertRangeEquals(treeMap.subMap(11, false, 11, true), navigableMap.subMap(11, false, 11, true));
+        assertRangeEquals(treeMap.headMap(31, true), navigableMap.headMap(31, true));
+        assertRangeEquals(treeMap.tailMap(150, false), navigableMap.tailMap(150, false));
+        assertRangeEquals(treeMap.descendingMap(), navigableMap.descendingMap());
+        assertRangeEquals(treeMap.descendingMap().headMap(40, false).tailMap(150, true),
+                navigableMap.descendingMap().headMap(40, false).tailMap(150, true));
+        assertRangeEquals(treeMap.subMap(20, true, 120, true).descendingMap().subMap(100, false, 30, true),
+                navigableMap.subMap(20, true, 120, true).descendingMap().subMap(100, false, 30, true));
+        assertEquals(new ArrayList<>(treeMap.descendingKeySet().headSet(50)),
+                new ArrayList<>(navigableMap.descendingKeySet().headSet(50)));
+    }
+
+    @Test
+    public void testThatRangeViewsAreLive() {
+        fillTreeMap();
+        NavigableMap<Integer, String> navigableMap = (NavigableMap<Integer, String>) m;
+        NavigableMap<Integer, String> view = navigableMap.subMap(5, true, 60, false);
+        assertEquals(7, view.size());
+        m.put(50, "50");
+        assertEquals("50", view.get(50));
+        view.remove(10);
+        assertFalse(m.containsKey(10));
+        assertThat(view.remove(90), is(nullValue()));
+        assertTrue(m.containsKey(90));
+        Iterator<Integer> iterator = view.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(Arrays.asList(5, 7, 9), new ArrayList<>(view.keySet()));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 7, 9, 60, 70, 80, 90), new ArrayList<>(m.keySet()));
+        ((CustomTreeMap<Integer, String>) m).checkInvariants();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatPutOutOfRangeThrowsIAE() {
+        ((NavigableMap<Integer, String>) m).headMap(10, false).put(10, "10");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatNestedViewOutOfRangeThrowsIAE() {
+        ((NavigableMap<Integer, String>) m).subMap(10, true, 20, false).tailMap(20, true);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testThatIteratorFailsFastOnModification() {
+        fillTreeMap();
+        for (Integer key : m.keySet()) {
+            m.remove(key);
+        }
+    }
+
+    @Test
+    public void testThatIteratorRemovesAllEntriesWithoutSkipping() {
+        CustomTreeMap<Integer, Integer> treeMap = new CustomTreeMap<>();
+        IntStream.range(0, 1000).forEach(i -> treeMap.put(i, i));
+        Iterator<Map.Entry<Integer, Integer>> iterator = treeMap.descendingMap().entrySet().iterator();
+        int expected = 999;
+        while (iterator.hasNext()) {
+            assertEquals(Integer.valueOf(expected--), iterator.next().getKey());
+            iterator.remove();
+            treeMap.checkInvariants();
+        }
+        assertEquals(-1, expected);
+        assertTrue(treeMap.isEmpty());
+    }
+
+    private static void assertRangeEquals(NavigableMap<Integer, String> expected, NavigableMap<Integer, String> actual) {
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()));
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        if (!expected.isEmpty()) {
+            assertEquals(expected.firstKey(), actual.firstKey());
+            assertEquals(expected.lastKey(), actual.lastKey());
+        }
+        for (int key = -3; key < 203; key++) {
+            assertEquals(expected.floorKey(key), actual.floorKey(key));
+            assertEquals(expected.ceilingKey(key), actual.ceilingKey(key));
+            assertEquals(expected.lowerKey(key), actual.lowerKey(key));
+            assertEquals(expected.higherKey(key), actual.higherKey(key));
+            assertEquals(expected.containsKey(key), actual.containsKey(key));
+        }
+    }
+
     private int fillTreeMap() {
         int size = 16;
         m.put(0, "0");
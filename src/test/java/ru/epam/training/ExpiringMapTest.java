@@ -0,0 +1,158 @@
+package ru.epam.training;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ExpiringMapTest {
+
+    private long now;
+
+    private ExpiringMap<Integer, String> m;
+
+    @Before
+    public void init() {
+        now = -TimeUnit.DAYS.toNanos(1);
+        m = new ExpiringMap<>(10, TimeUnit.SECONDS, () -> now);
+    }
+
+    private void sleep(long duration, TimeUnit unit) {
+        now += unit.toNanos(duration);
+    }
+
+    @Test
+    public void testThatEntryExpiresAfterTimeToLive() {
+        m.put(1, "ss1");
+        sleep(9, TimeUnit.SECONDS);
+        assertEquals("ss1", m.get(1));
+        sleep(1, TimeUnit.SECONDS);
+        assertNull(m.get(1));
+        assertFalse(m.containsKey(1));
+        assertTrue(m.isEmpty());
+    }
+
+    @Test
+    public void testThatPutRenewsTimeToLive() {
+        m.put(1, "ss1");
+        sleep(8, TimeUnit.SECONDS);
+        assertEquals("ss1", m.put(1, "ss2"));
+        sleep(8, TimeUnit.SECONDS);
+        assertEquals("ss2", m.get(1));
+        sleep(2, TimeUnit.SECONDS);
+        assertNull(m.put(1, "ss3"));
+    }
+
+    @Test
+    public void testThatEntriesExpireWithoutLookups() {
+        for (int i = 0; i < 1000; i++) {
+            m.put(i, "ss" + i, i + 1, TimeUnit.MINUTES);
+        }
+        for (int minute = 1; minute <= 1000; minute += 37) {
+            now += TimeUnit.MINUTES.toNanos(37);
+            int expected = Math.max(0, 1000 - (minute + 36));
+            int size = m.size();
+            assertTrue(size >= expected && size <= expected + 1);
+        }
+        sleep(1, TimeUnit.DAYS);
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public void testThatLongTimeToLiveIsCascadedThroughLevels() {
+        m.put(1, "ss1", 3, TimeUnit.DAYS);
+        m.put(2, "ss2", 10, TimeUnit.DAYS);
+        m.put(3, "ss3", Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        for (int hour = 0; hour < 24 * 3 - 1; hour++) {
+            sleep(1, TimeUnit.HOURS);
+            assertEquals(3, m.size());
+        }
+        sleep(2, TimeUnit.HOURS);
+        assertEquals(2, m.size());
+        sleep(7, TimeUnit.DAYS);
+        assertEquals(new HashSet<>(Collections.singletonList(3)), m.keySet());
+    }
+
+    @Test
+    public void testThatViewsSkipExpiredEntries() {
+        m.put(1, "ss1", 1, TimeUnit.SECONDS);
+        m.put(2, "ss2", 1, TimeUnit.MINUTES);
+        m.put(3, "ss3", 1, TimeUnit.HOURS);
+        sleep(500, TimeUnit.MILLISECONDS);
+        assertEquals(3, m.entrySet().size());
+        sleep(700, TimeUnit.MILLISECONDS);
+        assertEquals(new HashSet<>(Arrays.asList(2, 3)), new HashSet<>(m.keySet()));
+        assertFalse(m.containsValue("ss1"));
+        assertTrue(m.containsValue("ss2"));
+    }
+
+    @Test
+    public void testThatIteratorRemovesEntries() {
+        for (int i = 0; i < 100; i++) {
+            m.put(i, "ss" + i);
+        }
+        Iterator<Integer> iterator = m.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(50, m.size());
+        iterator = m.keySet().iterator();
+        Integer first = iterator.next();
+        iterator.hasNext();
+        iterator.remove();
+        assertFalse(m.containsKey(first));
+        assertEquals(49, new ArrayList<>(m.values()).size());
+    }
+
+    @Test
+    public void testThatIteratorRemovesEntriesAfterHasNext() {
+        for (int i = 0; i < 10; i++) {
+            m.put(i, "ss" + i);
+        }
+        List<Integer> removedKeys = new ArrayList<>();
+        Iterator<Integer> iterator = m.keySet().iterator();
+        while (iterator.hasNext()) {
+            Integer key = iterator.next();
+            iterator.hasNext();
+            if (key % 2 == 0) {
+                iterator.remove();
+                removedKeys.add(key);
+            }
+        }
+        assertEquals(5, m.size());
+        assertEquals(5, new ArrayList<>(m.keySet()).size());
+        assertFalse(m.containsKey(removedKeys.get(0)));
+        assertNull(m.put(removedKeys.get(0), "new"));
+        assertEquals(6, m.size());
+        sleep(2, TimeUnit.SECONDS);
+        assertEquals(6, m.size());
+        assertEquals("new", m.get(removedKeys.get(0)));
+        m.clear();
+        assertEquals(0, m.size());
+        m.put(1, "ss1");
+        assertEquals(1, m.size());
+    }
+
+    @Test
+    public void testThatRemoveAndClearWorkWell() {
+        m.put(1, "ss1");
+        m.put(2, "ss2");
+        assertEquals("ss1", m.remove(1));
+        assertNull(m.remove(1));
+        m.clear();
+        assertTrue(m.isEmpty());
+        m.put(3, "ss3");
+        sleep(11, TimeUnit.SECONDS);
+        assertTrue(m.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatPutThrowsIAEForWrongTimeToLive() {
+        m.put(1, "ss1", 0, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.epam.training;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class FrozenHashMapTest {
+
+    @Test
+    public void testThatFrozenMapContainsAllEntries() {
+        for (int size : new int[]{1, 2, 3, 10, 1000, 100000}) {
+            CustomHashMap<Integer, String> m = new CustomHashMap<>();
+            Random random = new Random(size);
+            for (int i = 0; i < size; i++) {
+                m.put(random.nextInt(), "ss" + i);
+            }
+            FrozenHashMap<Integer, String> frozen = m.freeze();
+            assertEquals(m.size(), frozen.size());
+            for (Map.Entry<Integer, String> entry : m.entrySet()) {
+                assertEquals(entry.getValue(), frozen.get(entry.getKey()));
+            }
+            assertEquals(new HashMap<>(m), new HashMap<>(frozen));
+            for (int i = 0; i < 1000; i++) {
+                Integer key = random.nextInt();
+                assertEquals(m.containsKey(key), frozen.containsKey(key));
+            }
+        }
+    }
+
+    @Test
+    public void testThatKeysWithEqualHashCodesAreKept() {
+        CustomHashMap<String, Integer> m = new CustomHashMap<>();
+        String[] parts = {"Aa", "BB"};
+        for (int i = 0; i < 1 << 8; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int bit = 0; bit < 8; bit++) {
+                key.append(parts[(i >>> bit) & 1]);
+            }
+            m.put(key.toString(), i);
+        }
+        for (int i = 0; i < 100; i++) {
+            m.put("key" + i, -i);
+        }
+        m.put(null, 1000);
+        FrozenHashMap<String, Integer> frozen = m.freeze();
+        assertEquals(new HashMap<>(m), new HashMap<>(frozen));
+        for (Map.Entry<String, Integer> entry : m.entrySet()) {
+            assertEquals(entry.getValue(), frozen.get(entry.getKey()));
+        }
+        assertNull(frozen.get("AaAaAaAaAaAaAaAaAa"));
+        assertFalse(frozen.containsKey("key100"));
+        assertTrue(frozen.containsValue(1000));
+    }
+
+    @Test
+    public void testThatRandomizedHashingIsKeptByFrozenMap() {
+        CustomHashMap<String, Integer> m = new CustomHashMap<>(16, 0.75f, true);
+        CustomHashMap<String, Integer> plain = new CustomHashMap<>();
+        String[] parts = {"Aa", "BB"};
+        for (int i = 0; i < 1 << 12; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int bit = 0; bit < 12; bit++) {
+                key.append(parts[(i >>> bit) & 1]);
+            }
+            m.put(key.toString(), i);
+            plain.put(key.toString(), i);
+        }
+        FrozenHashMap<String, Integer> frozen = m.freeze();
+        assertTrue("overflow: " + frozen.overflowSize(), frozen.overflowSize() < 4);
+        assertEquals((1 << 12) - 1, plain.freeze().overflowSize());
+        assertEquals(new HashMap<>(m), new HashMap<>(frozen));
+        assertNull(frozen.get("AaAaAaAaAaAaAaAaAaAaAaAaAa"));
+    }
+
+    @Test
+    public void testThatEmptyMapCanBeFrozen() {
+        FrozenHashMap<Integer, String> frozen = new CustomHashMap<Integer, String>().freeze();
+        assertTrue(frozen.isEmpty());
+        assertNull(frozen.get(1));
+        assertFalse(frozen.containsKey(null));
+        assertFalse(frozen.entrySet().iterator().hasNext());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testThatPutThrowsUOE() {
+        CustomHashMap<Integer, String> m = new CustomHashMap<>();
+        m.put(1, "ss1");
+        m.freeze().put(2, "ss2");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testThatIteratorRemoveThrowsUOE() {
+        CustomHashMap<Integer, String> m = new CustomHashMap<>();
+        m.put(1, "ss1");
+        Iterator<Integer> iterator = m.freeze().keySet().iterator();
+        iterator.next();
+        iterator.remove();
+    }
+}
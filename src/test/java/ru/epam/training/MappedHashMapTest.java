@@ -0,0 +1,194 @@
+package ru.epam.training;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class MappedHashMapTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testThatSnapshotGivesSameResultAsMap() throws IOException {
+        Map<Integer, Long> map = new CustomHashMap<>();
+        Random random = new Random(3);
+        for (long i = 0; i < 20000; i++) {
+            map.put(random.nextInt(), i);
+        }
+        Path file = folder.newFile().toPath();
+        MappedHashMap.writeSnapshot(map, file, OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+        try (MappedHashMap<Integer, Long> mapped = MappedHashMap.open(file,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG)) {
+            assertEquals(map.size(), mapped.size());
+            for (Map.Entry<Integer, Long> mustBeIn : map.entrySet()) {
+                assertEquals(mustBeIn.getValue(), mapped.get(mustBeIn.getKey()));
+            }
+            for (int i = 0; i < 1000; i++) {
+                int key = random.nextInt();
+                assertEquals(map.containsKey(key), mapped.containsKey(key));
+            }
+            assertEquals(new HashMap<>(map), mapped);
+            assertEquals(new HashSet<>(map.values()), new HashSet<>(mapped.values()));
+        }
+    }
+
+    @Test
+    public void testThatEmptyMapCanBeWrittenAndOpened() throws IOException {
+        Path file = folder.newFile().toPath();
+        MappedHashMap.writeSnapshot(new CustomHashMap<Integer, Long>(), file,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+        try (MappedHashMap<Integer, Long> mapped = MappedHashMap.open(file,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG)) {
+            assertTrue(mapped.isEmpty());
+            assertNull(mapped.get(1));
+            assertFalse(mapped.entrySet().iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void testThatSnapshotIsOverwritten() throws IOException {
+        Path file = folder.newFile().toPath();
+        Map<Integer, Long> map = new CustomHashMap<>();
+        for (long i = 0; i < 1000; i++) {
+            map.put((int) i, i);
+        }
+        MappedHashMap.writeSnapshot(map, file, OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+        MappedHashMap.writeSnapshot(Collections.singletonMap(5, 6L), file,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+        try (MappedHashMap<Integer, Long> mapped = MappedHashMap.open(file,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG)) {
+            assertEquals(Collections.singletonMap(5, 6L), mapped);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testThatMappedMapIsReadOnly() throws IOException {
+        Path file = folder.newFile().toPath();
+        MappedHashMap.writeSnapshot(Collections.singletonMap(5, 6L), file,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+        try (MappedHashMap<Integer, Long> mapped = MappedHashMap.open(file,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG)) {
+            mapped.put(1, 1L);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testThatOpenThrowsIOExceptionForWrongSerializer() throws IOException {
+        Path file = folder.newFile().toPath();
+        MappedHashMap.writeSnapshot(Collections.singletonMap(5, 6L), file,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+        MappedHashMap.open(file, OffHeapHashMap.Serializer.LONG, OffHeapHashMap.Serializer.LONG);
+    }
+
+    @Test(expected = IOException.class)
+    public void testThatOpenThrowsIOExceptionForForeignFile() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, "not a snapshot file at all".getBytes("UTF-8"));
+        MappedHashMap.open(file, OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+    }
+
+    @Test
+    public void testThatManyThreadsLookUpConcurrently() throws Exception {
+        Path file = folder.newFile().toPath();
+        Map<Integer, Long> map = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            map.put(i, (long) i * i);
+        }
+        MappedHashMap.writeSnapshot(map, file, OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+        try (MappedHashMap<Integer, Long> mapped = MappedHashMap.open(file,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG)) {
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<Integer>> misses = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    int shift = t;
+                    misses.add(pool.submit(() -> {
+                        int wrong = 0;
+                        for (int round = 0; round < 20; round++) {
+                            for (int i = shift; i < 20000; i += 4) {
+                                if (!Objects.equals(map.get(i), mapped.get(i))) {
+                                    wrong++;
+                                }
+                            }
+                        }
+                        return wrong;
+                    }));
+                }
+                for (Future<Integer> wrong : misses) {
+                    assertEquals(0, (int) wrong.get());
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testThatKeysAreFoundByTheirBytesNotHashCode() throws IOException {
+        Path file = folder.newFile().toPath();
+        Map<IdentityKey, Long> map = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(new IdentityKey(i), (long) i);
+        }
+        MappedHashMap.writeSnapshot(map, file, IdentityKey.SERIALIZER, OffHeapHashMap.Serializer.LONG);
+        try (MappedHashMap<IdentityKey, Long> mapped = MappedHashMap.open(file,
+                IdentityKey.SERIALIZER, OffHeapHashMap.Serializer.LONG)) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(Long.valueOf(i), mapped.get(new IdentityKey(i)));
+            }
+            assertNull(mapped.get(new IdentityKey(100)));
+        }
+    }
+
+    /**
+     * Key which keeps the identity hashCode, so equal keys of different JVMs have different hash codes.
+     */
+    private static final class IdentityKey {
+
+        static final OffHeapHashMap.Serializer<IdentityKey> SERIALIZER = new OffHeapHashMap.Serializer<IdentityKey>() {
+            @Override
+            public int size() {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public void write(IdentityKey key, ByteBuffer buffer, int offset) {
+                buffer.putInt(offset, key.id);
+            }
+
+            @Override
+            public IdentityKey read(ByteBuffer buffer, int offset) {
+                return new IdentityKey(buffer.getInt(offset));
+            }
+        };
+
+        final int id;
+
+        IdentityKey(int id) {
+            this.id = id;
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThatClosedMapThrowsISE() throws IOException {
+        Path file = folder.newFile().toPath();
+        MappedHashMap.writeSnapshot(Collections.singletonMap(5, 6L), file,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+        MappedHashMap<Integer, Long> mapped = MappedHashMap.open(file,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+        mapped.close();
+        mapped.get(5);
+    }
+}
@@ -0,0 +1,190 @@
+package ru.epam.training;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class OffHeapHashMapTest {
+
+    private OffHeapHashMap<Integer, Long> m;
+
+    @Before
+    public void init() {
+        m = new OffHeapHashMap<>(OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+    }
+
+    @After
+    public void close() {
+        m.close();
+    }
+
+    @Test
+    public void testThatWeCanPutGetAndRemove() {
+        assertNull(m.put(1, 10L));
+        assertEquals(10L, (long) m.put(1, 11L));
+        assertEquals(11L, (long) m.get(1));
+        assertTrue(m.containsKey(1));
+        assertTrue(m.containsValue(11L));
+        assertNull(m.get(2));
+        assertEquals(11L, (long) m.remove(1));
+        assertNull(m.remove(1));
+        assertTrue(m.isEmpty());
+    }
+
+    @Test
+    public void testThatOffHeapMapGivesSameResultAsHashMap() {
+        OffHeapHashMap<Integer, Long> map = new OffHeapHashMap<>(0, 0.75f,
+                OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG, 1024);
+        HashMap<Integer, Long> testingMap = new HashMap<>();
+        Random random = new Random(5);
+        for (long i = 0; i < 50000; i++) {
+            int key = random.nextInt(5000) - 2500;
+            if (random.nextInt(3) == 0) {
+                assertEquals(testingMap.remove(key), map.remove(key));
+            } else {
+                assertEquals(testingMap.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(testingMap, map);
+        map.close();
+    }
+
+    @Test
+    public void testThatIteratorRemovesEntries() {
+        int putAmount = 10000;
+        for (int i = 0; i < putAmount; i++) {
+            m.put(i, (long) i * i);
+        }
+        int iteratedAmount = 0;
+        Iterator<Map.Entry<Integer, Long>> iterator = m.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Long> entry = iterator.next();
+            assertEquals((long) entry.getKey() * entry.getKey(), (long) entry.getValue());
+            if (entry.getKey() % 2 == 0) {
+                iterator.remove();
+            }
+            iteratedAmount++;
+        }
+        assertEquals(putAmount, iteratedAmount);
+        assertEquals(putAmount / 2, m.size());
+        assertFalse(m.containsKey(0));
+        assertTrue(m.containsKey(1));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testThatIteratorThrowsCMEAfterPut() {
+        m.put(1, 1L);
+        Iterator<Integer> iterator = m.keySet().iterator();
+        m.put(2, 2L);
+        iterator.next();
+    }
+
+    @Test
+    public void testThatRemovedRecordsAreReused() {
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 1000; i++) {
+                m.put(round * 1000 + i, (long) i);
+            }
+            for (int i = 0; i < 1000; i++) {
+                m.remove(round * 1000 + i);
+            }
+        }
+        assertTrue(m.isEmpty());
+        m.put(1, 1L);
+        assertEquals(Collections.singletonMap(1, 1L), m);
+    }
+
+    @Test
+    public void testThatKeysAreComparedBySerializedForm() {
+        OffHeapHashMap<Point, Integer> map = new OffHeapHashMap<>(new PointSerializer(), OffHeapHashMap.Serializer.INTEGER);
+        for (int i = 0; i < 1000; i++) {
+            map.put(new Point(i, -i, i * 7L), i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) map.get(new Point(i, -i, i * 7L)));
+        }
+        assertNull(map.get(new Point(1, 1, 7L)));
+        map.close();
+    }
+
+    @Test
+    public void testThatClearKeepsMapUsable() {
+        for (int i = 0; i < 100; i++) {
+            m.put(i, (long) i);
+        }
+        m.clear();
+        assertTrue(m.isEmpty());
+        assertNull(m.get(5));
+        m.put(5, 5L);
+        assertEquals(5L, (long) m.get(5));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThatClosedMapThrowsISE() {
+        m.put(1, 1L);
+        m.close();
+        m.get(1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testThatPutThrowsNPEForNullValue() {
+        m.put(1, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatConstructorThrowsIAEForWrongCapacity() {
+        new OffHeapHashMap<>(-1, OffHeapHashMap.Serializer.INTEGER, OffHeapHashMap.Serializer.LONG);
+    }
+
+    private static final class Point {
+        private final int x;
+        private final int y;
+        private final long z;
+
+        Point(int x, int y, long z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Point)) {
+                return false;
+            }
+            Point point = (Point) o;
+            return x == point.x && y == point.y && z == point.z;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(x, y, z);
+        }
+    }
+
+    private static final class PointSerializer implements OffHeapHashMap.Serializer<Point> {
+        @Override
+        public int size() {
+            return 2 * Integer.BYTES + Long.BYTES + 1;
+        }
+
+        @Override
+        public void write(Point value, ByteBuffer buffer, int offset) {
+            buffer.putInt(offset, value.x);
+            buffer.putInt(offset + Integer.BYTES, value.y);
+            buffer.putLong(offset + 2 * Integer.BYTES, value.z);
+            buffer.put(offset + 2 * Integer.BYTES + Long.BYTES, (byte) 1);
+        }
+
+        @Override
+        public Point read(ByteBuffer buffer, int offset) {
+            return new Point(buffer.getInt(offset), buffer.getInt(offset + Integer.BYTES),
+                    buffer.getLong(offset + 2 * Integer.BYTES));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ru.epam.training;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveHashMapsTest {
+
+    @Test
+    public void testThatLongIntMapReturnsNoEntryValueForAbsentKey() {
+        LongIntHashMap map = new LongIntHashMap(16, 0.75f, -1);
+        assertEquals(-1, map.get(5L));
+        assertEquals(-1, map.put(5L, 10));
+        assertEquals(10, map.get(5L));
+        assertEquals(10, map.remove(5L));
+        assertEquals(-1, map.remove(5L));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testThatLongIntMapAddToCountsValues() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (long i = 0; i < 1000; i++) {
+            map.addTo(i % 10, 1);
+        }
+        assertEquals(10, map.size());
+        for (long i = 0; i < 10; i++) {
+            assertEquals(100, map.get(i));
+        }
+    }
+
+    @Test
+    public void testThatLongIntMapWorksWithZeroKey() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertFalse(map.containsKey(0L));
+        map.put(0L, 7);
+        assertTrue(map.containsKey(0L));
+        assertEquals(8, map.addTo(0L, 1));
+        assertEquals(1, map.size());
+        assertEquals(8, map.remove(0L));
+        assertFalse(map.containsKey(0L));
+    }
+
+    @Test
+    public void testThatLongIntMapGivesSameResultAsHashMap() {
+        LongIntHashMap map = new LongIntHashMap(0);
+        HashMap<Long, Integer> testingMap = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50000; i++) {
+            long key = random.nextInt(5000) - 2500;
+            if (random.nextInt(3) == 0) {
+                Integer removed = testingMap.remove(key);
+                assertEquals(removed == null ? 0 : removed, map.remove(key));
+            } else {
+                testingMap.merge(key, i, Integer::sum);
+                map.addTo(key, i);
+            }
+        }
+        assertEquals(testingMap.size(), map.size());
+        for (Map.Entry<Long, Integer> mustBeIn : testingMap.entrySet()) {
+            assertTrue(map.containsKey(mustBeIn.getKey()));
+            assertEquals((int) mustBeIn.getValue(), map.get(mustBeIn.getKey()));
+        }
+        int[] iteratedAmount = new int[1];
+        map.forEach((key, value) -> {
+            assertEquals((int) testingMap.get(key), value);
+            iteratedAmount[0]++;
+        });
+        assertEquals(testingMap.size(), iteratedAmount[0]);
+    }
+
+    @Test
+    public void testThatLongLongMapKeepsLongValues() {
+        LongLongHashMap map = new LongLongHashMap();
+        long big = Long.MAX_VALUE - 1;
+        for (long i = 0; i < 1000; i++) {
+            map.put(i * 31, big - i);
+        }
+        assertEquals(1000, map.size());
+        for (long i = 0; i < 1000; i++) {
+            assertEquals(big - i, map.get(i * 31));
+        }
+        assertEquals(big + 1, map.addTo(0L, 1L));
+        assertEquals(0L, map.get(-1L));
+    }
+
+    @Test
+    public void testThatIntObjectMapGivesSameResultAsHashMap() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        HashMap<Integer, String> testingMap = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 50000; i++) {
+            int key = random.nextInt(5000) - 2500;
+            if (random.nextInt(3) == 0) {
+                assertEquals(testingMap.remove(key), map.remove(key));
+            } else {
+                assertEquals(testingMap.put(key, "ss" + i), map.put(key, "ss" + i));
+            }
+        }
+        assertEquals(testingMap.size(), map.size());
+        for (Map.Entry<Integer, String> mustBeIn : testingMap.entrySet()) {
+            assertEquals(mustBeIn.getValue(), map.get(mustBeIn.getKey()));
+        }
+    }
+
+    @Test
+    public void testThatIntObjectMapComputesAbsentValueOnce() {
+        IntObjectHashMap<List<String>> map = new IntObjectHashMap<>();
+        map.computeIfAbsent(3, key -> new ArrayList<>()).add("a");
+        map.computeIfAbsent(3, key -> new ArrayList<>()).add("b");
+        assertEquals(Arrays.asList("a", "b"), map.get(3));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testThatIntObjectMapThrowsCMEWhenFunctionAddsKeys() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        try {
+            map.computeIfAbsent(1, key -> {
+                for (int i = 2; i < 102; i++) {
+                    map.put(i, "ss" + i);
+                }
+                return "ss1";
+            });
+            fail();
+        } catch (ConcurrentModificationException expected) {
+            assertNull(map.get(1));
+            assertEquals(100, map.size());
+        }
+        assertEquals("ss1", map.computeIfAbsent(1, key -> "ss1"));
+        assertEquals("ss1", map.get(1));
+        assertEquals(101, map.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testThatIntObjectMapThrowsNPEForNullValue() {
+        new IntObjectHashMap<String>().put(1, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatConstructorThrowsIAEForWrongLoadFactor() {
+        new LongIntHashMap(16, 1f, 0);
+    }
+}
@@ -0,0 +1,58 @@
+package ru.epam.training;
+
+import java.util.Random;
+
+/**
+ * Compares throughput of CustomHashMap.putAll(K[], V[]) with loops of put into a map of default
+ * capacity, which grows step by step, and into a map presized for all entries. putAll only presizes
+ * the table, so it must be as fast as the presized loop and faster than the growing one.
+ * It is not a test, run it with the main method on a quiet machine, optionally with the amount
+ * of map entries as an argument.
+ */
+
+public class PutAllBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private static long checksum;
+
+    public static void main(String[] args) {
+        int mapSize = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        Random random = new Random(42);
+
+        Integer[] keys = new Integer[mapSize];
+        String[] values = new String[mapSize];
+        for (int i = 0; i < mapSize; i++) {
+            keys[i] = random.nextInt();
+            values[i] = "value" + i;
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            CustomHashMap<Integer, String> growingMap = new CustomHashMap<>();
+            for (int i = 0; i < mapSize; i++) {
+                growingMap.put(keys[i], values[i]);
+            }
+            long growingPut = System.nanoTime() - start;
+            checksum += growingMap.size();
+
+            start = System.nanoTime();
+            CustomHashMap<Integer, String> presizedMap = new CustomHashMap<>((int) (mapSize / CustomHashMap.DEFAULT_LOAD_FACTOR) + 1);
+            for (int i = 0; i < mapSize; i++) {
+                presizedMap.put(keys[i], values[i]);
+            }
+            long presizedPut = System.nanoTime() - start;
+            checksum += presizedMap.size();
+
+            start = System.nanoTime();
+            CustomHashMap<Integer, String> batchMap = new CustomHashMap<>();
+            batchMap.putAll(keys, values);
+            long batchPut = System.nanoTime() - start;
+            checksum += batchMap.size();
+
+            System.out.printf("round %d: put loop %.1f ns/op, presized put loop %.1f ns/op, putAll %.1f ns/op%n",
+                    round, (double) growingPut / mapSize, (double) presizedPut / mapSize, (double) batchPut / mapSize);
+        }
+        System.out.println("checksum " + checksum);
+    }
+}
@@ -0,0 +1,134 @@
+package ru.epam.training;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ReferenceHashMapTest {
+
+    /**
+     * Asks the collector until the map loses its entries, a single System.gc() call is only a hint.
+     */
+
+    private static void collectUntilSize(Map<?, ?> m, int expectedSize) throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && m.size() != expectedSize; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testThatMapWorksAsOrdinaryMapForReachableKeys() {
+        for (ReferenceHashMap.Strength keyStrength : ReferenceHashMap.Strength.values()) {
+            for (ReferenceHashMap.Strength valueStrength : ReferenceHashMap.Strength.values()) {
+                Map<String, String> m = new ReferenceHashMap<>(keyStrength, valueStrength);
+                Map<String, String> hashMap = new HashMap<>();
+                for (int i = 0; i < 100; i++) {
+                    assertEquals(hashMap.put("key" + i, "ss" + i), m.put("key" + i, "ss" + i));
+                }
+                assertEquals("ss5", m.put("key5", "ss55"));
+                hashMap.put("key5", "ss55");
+                assertNull(m.put(null, null));
+                hashMap.put(null, null);
+                assertTrue(m.containsKey(null));
+                assertTrue(m.containsValue(null));
+                assertEquals("ss7", m.remove("key7"));
+                hashMap.remove("key7");
+                assertEquals(hashMap, m);
+                assertEquals(hashMap.keySet(), m.keySet());
+                assertEquals(100, m.size());
+            }
+        }
+    }
+
+    @Test
+    public void testThatWeakKeyEntryIsExpungedWhenKeyIsCollected() throws InterruptedException {
+        Map<Object, String> m = ReferenceHashMap.weakKeys();
+        Object reachableKey = new Object();
+        m.put(reachableKey, "ss1");
+        for (int i = 0; i < 100; i++) {
+            m.put(new Object(), "ss" + i);
+        }
+        collectUntilSize(m, 1);
+        assertEquals(1, m.size());
+        assertEquals("ss1", m.get(reachableKey));
+        assertEquals(Collections.singleton(reachableKey), m.keySet());
+    }
+
+    @Test
+    public void testThatWeakValueEntryIsExpungedWhenValueIsCollected() throws InterruptedException {
+        Map<Integer, Object> m = new ReferenceHashMap<>(ReferenceHashMap.Strength.STRONG, ReferenceHashMap.Strength.WEAK);
+        Object reachableValue = new Object();
+        m.put(-1, reachableValue);
+        for (int i = 0; i < 100; i++) {
+            m.put(i, new Object());
+        }
+        collectUntilSize(m, 1);
+        assertEquals(1, m.size());
+        assertNull(m.get(5));
+        assertSame(reachableValue, m.get(-1));
+    }
+
+    @Test
+    public void testThatReplacedValueDoesNotRemoveEntry() throws InterruptedException {
+        Map<Integer, Object> m = new ReferenceHashMap<>(ReferenceHashMap.Strength.STRONG, ReferenceHashMap.Strength.WEAK);
+        Object reachableValue = new Object();
+        m.put(1, new Object());
+        m.put(1, reachableValue);
+        for (int attempt = 0; attempt < 5; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertSame(reachableValue, m.get(1));
+        assertEquals(1, m.size());
+    }
+
+    @Test
+    public void testThatSoftValuesAreKeptWhileHeapIsEnough() {
+        Map<Integer, String> m = ReferenceHashMap.softValues();
+        for (int i = 0; i < 1000; i++) {
+            m.put(i, "ss" + i);
+        }
+        System.gc();
+        assertEquals(1000, m.size());
+        assertEquals("ss999", m.get(999));
+    }
+
+    @Test
+    public void testThatIteratorRemovesEntries() {
+        Map<Integer, String> m = ReferenceHashMap.softValues();
+        for (int i = 0; i < 100; i++) {
+            m.put(i, "ss" + i);
+        }
+        Iterator<Map.Entry<Integer, String>> iterator = m.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() % 2 == 0) {
+                iterator.remove();
+            } else {
+                entry.setValue("new");
+            }
+        }
+        assertEquals(50, m.size());
+        assertEquals("new", m.get(1));
+        assertFalse(m.containsKey(2));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testThatIteratorFailsFast() {
+        Map<Integer, String> m = ReferenceHashMap.weakKeys();
+        m.put(1, "ss1");
+        m.put(2, "ss2");
+        Iterator<Integer> iterator = m.keySet().iterator();
+        iterator.next();
+        m.put(3, "ss3");
+        iterator.next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatConstructorThrowsIAEForNegativeCapacity() {
+        new ReferenceHashMap<>(-1, 0.75f, ReferenceHashMap.Strength.WEAK, ReferenceHashMap.Strength.STRONG);
+    }
+}
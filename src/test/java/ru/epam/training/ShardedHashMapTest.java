@@ -0,0 +1,109 @@
+package ru.epam.training;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.*;
+
+public class ShardedHashMapTest {
+
+    @Test
+    public void testThatMapWorksAsHashMap() {
+        Map<Integer, String> m = new ShardedHashMap<>();
+        Map<Integer, String> hashMap = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 20000; i++) {
+            Integer key = random.nextInt(3000);
+            if (random.nextBoolean()) {
+                assertEquals(hashMap.put(key, "ss" + i), m.put(key, "ss" + i));
+            } else {
+                assertEquals(hashMap.remove(key), m.remove(key));
+            }
+        }
+        assertEquals(hashMap, new HashMap<>(m));
+        assertEquals(hashMap.size(), m.size());
+        assertEquals(hashMap.keySet(), m.keySet());
+        m.put(null, "null");
+        assertEquals("null", m.get(null));
+    }
+
+    @Test
+    public void testThatParallelPutAllKeepsLastValueOfDuplicateKey() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ShardedHashMap<Integer, Integer> m = new ShardedHashMap<>(64, pool);
+            int length = 300000;
+            Integer[] keys = new Integer[length];
+            Integer[] values = new Integer[length];
+            for (int i = 0; i < length; i++) {
+                keys[i] = i % 100000;
+                values[i] = i;
+            }
+            m.put(-1, -1);
+            m.parallelPutAll(keys, values);
+            assertEquals(100001, m.size());
+            for (int i = 0; i < 100000; i++) {
+                assertEquals(Integer.valueOf(200000 + i), m.get(i));
+            }
+            assertEquals(Integer.valueOf(-1), m.get(-1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testThatParallelPutAllInsertsCollectionsAndMaps() {
+        ShardedHashMap<Integer, String> m = new ShardedHashMap<>(1, ForkJoinPool.commonPool());
+        Map<Integer, String> hashMap = new HashMap<>();
+        for (int i = 0; i < 50000; i++) {
+            hashMap.put(i, "ss" + i);
+        }
+        m.parallelPutAll(hashMap);
+        assertEquals(hashMap, new HashMap<>(m));
+        m.parallelPutAll(Arrays.asList(new AbstractMap.SimpleEntry<>(1, "new"), new AbstractMap.SimpleEntry<>(-1, "ss")));
+        assertEquals("new", m.get(1));
+        assertEquals(50001, m.size());
+    }
+
+    @Test
+    public void testThatParallelForEachAndReduceVisitAllEntries() {
+        ShardedHashMap<Integer, Integer> m = new ShardedHashMap<>();
+        long expectedSum = 0;
+        for (int i = 0; i < 100000; i++) {
+            m.put(i, i);
+            expectedSum += i;
+        }
+        LongAdder sum = new LongAdder();
+        m.parallelForEach((key, value) -> sum.add(value));
+        assertEquals(expectedSum, sum.sum());
+        assertEquals(Long.valueOf(expectedSum), m.parallelReduce((key, value) -> (long) value, Long::sum));
+        assertEquals(Integer.valueOf(99999), m.parallelReduce((key, value) -> key, Math::max));
+        assertNull(m.parallelReduce((key, value) -> (Integer) null, Math::max));
+    }
+
+    @Test
+    public void testThatIteratorRemovesEntries() {
+        Map<Integer, String> m = new ShardedHashMap<>(8, ForkJoinPool.commonPool());
+        for (int i = 0; i < 1000; i++) {
+            m.put(i, "ss" + i);
+        }
+        Iterator<Integer> iterator = m.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(500, m.size());
+        assertFalse(m.containsKey(2));
+        assertTrue(m.keySet().remove(3));
+        assertFalse(m.containsKey(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThatParallelPutAllThrowsIAEForDifferentLengths() {
+        new ShardedHashMap<Integer, Integer>().parallelPutAll(new Integer[1], new Integer[2]);
+    }
+}
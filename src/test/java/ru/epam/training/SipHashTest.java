@@ -0,0 +1,37 @@
+package ru.epam.training;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SipHashTest {
+
+    private static final long K0 = 0x0706050403020100L;
+
+    private static final long K1 = 0x0F0E0D0C0B0A0908L;
+
+    /**
+     * @return chars made of bytes 0, 1, 2... in little-endian order, as in the reference test vectors
+     */
+
+    private static String sequentialBytes(int chars) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < chars; i++) {
+            builder.append((char) (2 * i | (2 * i + 1) << 8));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testThatHashMatchesReferenceVectors() {
+        assertEquals(0x726FDB47DD0E0E31L, SipHash.hash(K0, K1, ""));
+        assertEquals(0x93F5F5799A932462L, SipHash.hash(K0, K1, sequentialBytes(4)));
+    }
+
+    @Test
+    public void testThatStringsWithSameHashCodeGetDifferentHashes() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(SipHash.hash(K0, K1, "Aa"), SipHash.hash(K0, K1, "BB"));
+        assertNotEquals(SipHash.hash(K0, K1, "Aa"), SipHash.hash(K0 + 1, K1, "Aa"));
+    }
+}